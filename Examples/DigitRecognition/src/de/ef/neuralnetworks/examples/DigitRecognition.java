@@ -31,6 +31,7 @@ import de.ef.neuralnetworks.pipeline.Pipeline;
 import de.ef.neuralnetworks.pipeline.PipelineBuilder;
 import de.ef.neuralnetworks.pipeline.image.GrayscaleImageConverter;
 import de.ef.neuralnetworks.pipeline.image.ImageObjects;
+import de.ef.neuralnetworks.util.DataSet;
 import de.ef.neuralnetworks.util.NeuralNetworkTraining;
 import de.ef.slowwave.pipeline.ByteArrayBufferFactory;
 import de.ef.slowwave.pipeline.ByteArrayBufferFactory.FixedByteArrayBufferFactory;
@@ -124,7 +125,7 @@ public class DigitRecognition{
 	
 	
 	private final ZipFile dataSet;
-	private List<Entry<double[], double[]>> data;
+	private DataSet data;
 	
 	private NeuralNetwork<double[], double[]> network;
 	private Pipeline<BufferedImage, double[]> inputPipeline;
@@ -177,12 +178,10 @@ public class DigitRecognition{
 				throw new RuntimeException(e);
 			}
 			
-			List<Entry<double[], double[]>> data = new ArrayList<>();
+			DataSet data = new DataSet(INPUT_SIZE, DigitRecognition.OUTPUTS[0].length, images.size(), false);
 			for(Entry<Byte, BufferedImage> image : images){
 				data.add(
-					new SimpleEntry<>(
-						this.inputPipeline.process(image.getValue()), DigitRecognition.OUTPUTS[image.getKey()]
-					)
+					this.inputPipeline.process(image.getValue()), DigitRecognition.OUTPUTS[image.getKey()]
 				);
 			}
 			
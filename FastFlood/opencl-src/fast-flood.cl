@@ -1,3 +1,10 @@
+// sigmoid function, exp is much cheaper than powr with base e
+// and has a maximum error of 3 ulp instead of 16 ulp
+inline float sigmoid(const float x){
+	return 1 / (1 + exp(-x));
+}
+
+
 __kernel void calculateLayer(
 		__global float *neurons, __global float *weights,
 		__constant int *layerInfos, __constant int *neuronOffsets, const int layer){
@@ -15,7 +22,7 @@ __kernel void calculateLayer(
 	// bias neuron weight
 	sum += weights[neuronOffset + lastLayerSize];
 	// calculate output for neuron via sigmoid function
-	neurons[layerInfos[2 * layer + 1] + gid] = 1 / (1 + powr(M_E_F, -sum));
+	neurons[layerInfos[2 * layer + 1] + gid] = sigmoid(sum);
 }
 
 __kernel void calculateFirstLayer(
@@ -34,7 +41,39 @@ __kernel void calculateFirstLayer(
 	// bias neuron weight
 	sum += weights[neuronOffset + inputLayerSize];
 	// calculate output for neuron via sigmoid function
-	neurons[gid] = 1 / (1 + powr(M_E_F, -sum));
+	neurons[gid] = sigmoid(sum);
+}
+
+
+// maximum number of samples calculated by one batch kernel call
+#define BATCH_SIZE 64
+
+// every sample of a batch has its own row of inputs and neurons,
+// each work item calculates one neuron for all samples so the
+// weights of the neuron are read only once for the whole batch
+__kernel void calculateBatchLayer(
+		__global float *inputs, const int inputOffset, const int inputStride, const int inputCount,
+		__global float *neurons, const int neuronStride, __global float *weights,
+		__constant int *neuronOffsets, const int layerOffset, const int count){
+	int gid = get_global_id(0);
+	
+	// neuron offset in weights array
+	const int neuronOffset = neuronOffsets[layerOffset + gid];
+	
+	// calculate input sum for neuron of each sample
+	float sums[BATCH_SIZE];
+	for(int b = 0; b < count; b++)
+		sums[b] = 0;
+	for(int i = 0; i < inputCount; i++){
+		const float weight = weights[neuronOffset + i];
+		for(int b = 0; b < count; b++)
+			sums[b] += inputs[inputOffset + b * inputStride + i] * weight;
+	}
+	// bias neuron weight
+	const float bias = weights[neuronOffset + inputCount];
+	// calculate output for neuron of each sample via sigmoid function
+	for(int b = 0; b < count; b++)
+		neurons[b * neuronStride + layerOffset + gid] = sigmoid(sums[b] + bias);
 }
 
 
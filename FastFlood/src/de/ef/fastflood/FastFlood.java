@@ -18,7 +18,7 @@ import de.ef.neuralnetworks.NeuralNetwork;
  */
 public abstract class FastFlood
 	implements NeuralNetwork<float[], float[]>, AutoCloseable{
-
+	
 	/**
 	 * Make always same as @version in JavaDoc in format xxx.yyy.zzz
 	 */
@@ -95,9 +95,44 @@ public abstract class FastFlood
 		return outputs;
 	}
 	
+	// calculate and copy the internal outputs into the buffer
+	@Override
+	public float[] calculate(float inputs[], float outputs[]) throws IOException{
+		System.arraycopy(this.calculate(inputs), 0, outputs, 0, this.outputs.length);
+		return outputs;
+	}
+	
 	protected abstract void calculateLayer(int layer) throws IOException;
 	
 	
+	// calculate the batch in chunks, every chunk is calculated layer by layer
+	// and the outputs are copied because calculate returns the internal outputs
+	@Override
+	public void calculateBatch(float inputs[][], float outputs[][]) throws IOException{
+		if(inputs.length != outputs.length)
+			throw new IllegalArgumentException("Batch sizes do not match: " + inputs.length + " != " + outputs.length);
+		
+		int chunkSize = this.maxBatchSize();
+		for(int offset = 0; offset < inputs.length; offset += chunkSize){
+			int count = Math.min(chunkSize, inputs.length - offset);
+			for(int i = 0; i < count; i++){
+				if(inputs[offset + i].length < layerSizes[0])
+					throw new ArrayIndexOutOfBoundsException("Input to small");
+			}
+			
+			this.writeBatchInputs(inputs, offset, count);
+			for(int i = 1; i < layerSizes.length; i++){
+				this.calculateBatchLayer(i, count);
+			}
+			this.readBatchOutputs(outputs, offset, count);
+		}
+	}
+	
+	protected abstract int maxBatchSize();
+	
+	protected abstract void calculateBatchLayer(int layer, int count) throws IOException;
+	
+	
 	// just call train with default learning rate
 	@Override
 	public double train(float inputs[], float outputs[]) throws IOException{
@@ -131,6 +166,10 @@ public abstract class FastFlood
 	
 	protected abstract void readOutputs() throws IOException;
 	
+	protected abstract void writeBatchInputs(float inputs[][], int offset, int count) throws IOException;
+	
+	protected abstract void readBatchOutputs(float outputs[][], int offset, int count) throws IOException;
+	
 	
 	public abstract void close() throws IOException;
 }
@@ -32,6 +32,15 @@ public class FastFloodOpenCL
 		INPUTS_INDEX = 0, NEURONS_INDEX = 1, WEIGHTS_INDEX = 2,
 		LAYER_INFOS_INDEX = 3, NEURON_OFFSETS_INDEX = 4, CURRENT_LAYER_INDEX = 5;
 	
+	// must match BATCH_SIZE in fast-flood.cl
+	private final static int MAX_BATCH_SIZE = 64;
+	
+	private final static int
+		BATCH_INPUTS_ARGUMENT = 0, BATCH_INPUT_OFFSET_ARGUMENT = 1, BATCH_INPUT_STRIDE_ARGUMENT = 2,
+		BATCH_INPUT_COUNT_ARGUMENT = 3, BATCH_NEURONS_ARGUMENT = 4, BATCH_NEURON_STRIDE_ARGUMENT = 5,
+		BATCH_WEIGHTS_ARGUMENT = 6, BATCH_NEURON_OFFSETS_ARGUMENT = 7, BATCH_LAYER_OFFSET_ARGUMENT = 8,
+		BATCH_COUNT_ARGUMENT = 9;
+	
 	
 	
 	private final cl_context context;
@@ -42,7 +51,12 @@ public class FastFloodOpenCL
 	private final cl_program program;
 	private final cl_kernel
 		calculateLayerKernel, calculateFirstLayerKernel,
-		trainLayerKernel, randomFloatArrayKernel;
+		trainLayerKernel, randomFloatArrayKernel,
+		calculateBatchLayerKernel;
+	
+	// batch buffers are created on first use
+	private cl_mem batchInputsMemory, batchNeuronsMemory;
+	private float batchInputs[], batchOutputs[];
 	
 	
 	@SuppressWarnings("deprecation")
@@ -99,6 +113,11 @@ public class FastFloodOpenCL
 			clSetKernelArg(trainLayerKernel         , i    , Sizeof.cl_mem, pointer);
 		}
 		
+		calculateBatchLayerKernel = clCreateKernel(program, "calculateBatchLayer", null);
+		clSetKernelArg(calculateBatchLayerKernel, BATCH_NEURON_STRIDE_ARGUMENT, Sizeof.cl_int, Pointer.to(new int[]{neuronOffsets.length}));
+		clSetKernelArg(calculateBatchLayerKernel, BATCH_WEIGHTS_ARGUMENT, Sizeof.cl_mem, Pointer.to(memory[WEIGHTS_INDEX]));
+		clSetKernelArg(calculateBatchLayerKernel, BATCH_NEURON_OFFSETS_ARGUMENT, Sizeof.cl_mem, Pointer.to(memory[NEURON_OFFSETS_INDEX]));
+		
 		randomFloatArrayKernel = clCreateKernel(program, "randomFloatArray", null);
 		clSetKernelArg(randomFloatArrayKernel, 0, Sizeof.cl_mem, Pointer.to(memory[WEIGHTS_INDEX]));
 		
@@ -127,6 +146,34 @@ public class FastFloodOpenCL
 	}
 	
 	
+	@Override
+	protected int maxBatchSize(){
+		return MAX_BATCH_SIZE;
+	}
+	
+	@Override
+	protected void calculateBatchLayer(int layer, int count) throws IOException{
+		// the first layer reads from the batch inputs, every other layer from the previous layer
+		if(layer == 1){
+			clSetKernelArg(calculateBatchLayerKernel, BATCH_INPUTS_ARGUMENT, Sizeof.cl_mem, Pointer.to(batchInputsMemory));
+			clSetKernelArg(calculateBatchLayerKernel, BATCH_INPUT_OFFSET_ARGUMENT, Sizeof.cl_int, Pointer.to(new int[]{0}));
+			clSetKernelArg(calculateBatchLayerKernel, BATCH_INPUT_STRIDE_ARGUMENT, Sizeof.cl_int, Pointer.to(new int[]{layerSizes[0]}));
+		}
+		else{
+			clSetKernelArg(calculateBatchLayerKernel, BATCH_INPUTS_ARGUMENT, Sizeof.cl_mem, Pointer.to(batchNeuronsMemory));
+			clSetKernelArg(calculateBatchLayerKernel, BATCH_INPUT_OFFSET_ARGUMENT, Sizeof.cl_int, Pointer.to(new int[]{layerOffsets[layer - 1]}));
+			clSetKernelArg(calculateBatchLayerKernel, BATCH_INPUT_STRIDE_ARGUMENT, Sizeof.cl_int, Pointer.to(new int[]{neuronOffsets.length}));
+		}
+		clSetKernelArg(calculateBatchLayerKernel, BATCH_INPUT_COUNT_ARGUMENT, Sizeof.cl_int, Pointer.to(new int[]{layerSizes[layer - 1]}));
+		clSetKernelArg(calculateBatchLayerKernel, BATCH_LAYER_OFFSET_ARGUMENT, Sizeof.cl_int, Pointer.to(new int[]{layerOffsets[layer]}));
+		clSetKernelArg(calculateBatchLayerKernel, BATCH_COUNT_ARGUMENT, Sizeof.cl_int, Pointer.to(new int[]{count}));
+		clEnqueueNDRangeKernel(
+			commandQueue, calculateBatchLayerKernel, 1, null, new long[]{layerSizes[layer]}, new long[]{1}, 0, null, null
+		);
+		clFinish(commandQueue);
+	}
+	
+	
 	@Override
 	protected void trainLayer(int layer) throws IOException{
 		clSetKernelArg(trainLayerKernel, CURRENT_LAYER_INDEX, Sizeof.cl_int, Pointer.to(new int[]{layer}));
@@ -152,16 +199,62 @@ public class FastFloodOpenCL
 	}
 	
 	
+	@Override
+	protected void writeBatchInputs(float inputs[][], int offset, int count) throws IOException{
+		if(batchInputsMemory == null){
+			batchInputs = new float[MAX_BATCH_SIZE * layerSizes[0]];
+			batchOutputs = new float[MAX_BATCH_SIZE * outputs.length];
+			batchInputsMemory = clCreateBuffer(
+				context, CL_MEM_READ_ONLY, Sizeof.cl_float * batchInputs.length, null, null
+			);
+			batchNeuronsMemory = clCreateBuffer(
+				context, CL_MEM_READ_WRITE, Sizeof.cl_float * neuronOffsets.length * MAX_BATCH_SIZE, null, null
+			);
+			clSetKernelArg(calculateBatchLayerKernel, BATCH_NEURONS_ARGUMENT, Sizeof.cl_mem, Pointer.to(batchNeuronsMemory));
+		}
+		// pack inputs into one row per sample
+		for(int i = 0; i < count; i++){
+			System.arraycopy(inputs[offset + i], 0, batchInputs, i * layerSizes[0], layerSizes[0]);
+		}
+		clEnqueueWriteBuffer(
+			commandQueue, batchInputsMemory, CL_TRUE, 0, Sizeof.cl_float * count * layerSizes[0], Pointer.to(batchInputs), 0, null, null
+		);
+	}
+	
+	@Override
+	protected void readBatchOutputs(float outputs[][], int offset, int count) throws IOException{
+		int outputSize = this.outputs.length, outputLayerOffset = layerOffsets[layerOffsets.length - 1];
+		// read the output layer of each sample and wait for all reads
+		for(int i = 0; i < count; i++){
+			clEnqueueReadBuffer(
+				commandQueue, batchNeuronsMemory, CL_FALSE,
+				Sizeof.cl_float * (i * neuronOffsets.length + outputLayerOffset), Sizeof.cl_float * outputSize,
+				Pointer.to(batchOutputs).withByteOffset(Sizeof.cl_float * i * outputSize), 0, null, null
+			);
+		}
+		clFinish(commandQueue);
+		for(int i = 0; i < count; i++){
+			outputs[offset + i] = new float[outputSize];
+			System.arraycopy(batchOutputs, i * outputSize, outputs[offset + i], 0, outputSize);
+		}
+	}
+	
+	
 	@Override
 	public void close() throws IOException{
 		for(int i = 0; i < memory.length; i++){
 			clReleaseMemObject(memory[i]);
 		}
+		if(batchInputsMemory != null){
+			clReleaseMemObject(batchInputsMemory);
+			clReleaseMemObject(batchNeuronsMemory);
+		}
 		
 		clReleaseKernel(calculateLayerKernel);
 		clReleaseKernel(calculateFirstLayerKernel);
 		clReleaseKernel(trainLayerKernel);
 		clReleaseKernel(randomFloatArrayKernel);
+		clReleaseKernel(calculateBatchLayerKernel);
 		
 		clReleaseProgram(program);
 		clReleaseCommandQueue(commandQueue);
@@ -1,12 +1,26 @@
 package de.ef.neuralnetworks;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import de.ef.neuralnetworks.util.RingBuffer;
 
 /**
  * The class {@code AsyncNeuralNetwork} makes a
@@ -19,22 +33,83 @@ import java.util.concurrent.ThreadFactory;
  * <li>a single neural-network<b>*</b> and {@code n} producer threads</li>
  * <li>{@code n} neural-networks and {@code n} producer threads</li>
  * </ul>
- * <b>*</b>: In this configuration the neural-network has to be thread-safe.
+ * <b>*</b>: In this configuration the neural-network has to be thread-safe,
+ * like a {@link de.ef.neuralnetworks.InferenceModel InferenceModel}.
+ * </p>
+ * <p>
+ * With micro-batching enabled by {@link Builder#batch Builder.batch} a producer thread takes
+ * all waiting inputs up to a maximum batch size, waits a short time for more inputs
+ * if the batch is not full and calculates them together with
+ * {@link de.ef.neuralnetworks.NeuralNetwork#calculateBatch NeuralNetwork.calculateBatch}.
+ * Under load many single calculations become one batch which reads the weights only once,
+ * while the timeout limits how long a single input waits for others.
+ * </p>
+ * <p>
+ * The inputs are passed to the producer threads by a {@link java.util.concurrent.LinkedBlockingQueue LinkedBlockingQueue}
+ * or with {@link Builder#ringBuffer Builder.ringBuffer} by a preallocated
+ * {@link de.ef.neuralnetworks.util.RingBuffer RingBuffer}, which does not allocate a node per input and waits
+ * for inputs as selected by its {@link de.ef.neuralnetworks.util.RingBuffer.WaitStrategy WaitStrategy}.
+ * </p>
+ * <p>
+ * Callers which block anyway (like one thread per request) should use {@link #calculateBlocking calculateBlocking},
+ * which parks the calling thread until its output is calculated instead of creating a
+ * {@link java.util.concurrent.Future Future}. The producer threads are always a fixed set of threads,
+ * each bound to one neural-network, no matter how many threads are calling.
+ * </p>
+ * <p>
+ * By default the queue of inputs is unbounded. With {@link Builder#capacity Builder.capacity} it is bounded
+ * and the {@link RejectionPolicy RejectionPolicy} decides what happens to an input if the queue is full.
+ * Inputs can have a deadline, inputs which are still waiting when their deadline is over are dropped before
+ * they are calculated and their output completes with a {@link java.util.concurrent.TimeoutException TimeoutException}.
+ * An exception thrown by the neural-network only completes the output of its own input exceptionally.
+ * </p>
+ * <p>
+ * The producer threads run until {@link #shutdown() shutdown} is called, which should always be done
+ * when an {@code AsyncNeuralNetwork} is not used anymore, especially with a ring buffer whose
+ * waiting producer threads keep spinning or waking up.
+ * </p>
+ * <p>
+ * With {@link Builder#coalesce Builder.coalesce} equal inputs which are passed while the same input is
+ * still waiting or calculated are not queued again, they get the output of the first input instead.
+ * Inputs which are primitive arrays are compared by their content. All coalesced callers get the same
+ * output object and the deadline of the first input, but each caller gets its own
+ * {@link java.util.concurrent.Future Future}, cancelling it does not affect the other callers.
+ * </p>
+ * <p>
+ * The {@link #metrics() metrics} count the submitted, completed, failed, rejected, expired and coalesced inputs
+ * and record how long inputs wait in the queue and how long calculating takes, they can be
+ * published by JMX with {@link de.ef.neuralnetworks.AsyncNeuralNetworkMetrics#register register}.
  * </p>
  * 
  * @param I input type
  * @param O output type
  * 
  * @author Erik Fritzsche
- * @version 2.0
+ * @version 2.5
  * @since 1.0
  */
 public class AsyncNeuralNetwork<I, O>{
 	
 	private final NeuralNetwork<I, O>[] networks;
-	private final BlockingQueue<AsyncDataContainer> queue;
+	private final Transport<AsyncDataContainer> queue;
 	private final ExecutorService producer;
 	
+	// maximum batch size, one to calculate every input on its own
+	private final int batchSize;
+	private final long batchTimeout;
+	private final IntFunction<I[]> inputArrays;
+	private final IntFunction<O[]> outputArrays;
+	
+	// deadline of every input in nanoseconds, zero for none
+	private final long deadline;
+	// null to wait for space or to not bound the queue
+	private final RejectionPolicy rejectionPolicy;
+	
+	// outputs of the waiting and calculated inputs, null if not coalescing
+	private final ConcurrentHashMap<InputKey, CompletableFuture<O>> inFlight;
+	
+	private final AsyncNeuralNetworkMetrics metrics;
+	
 	
 	/**
 	 * Configures the {@code AsyncNeuralNetworks} to have
@@ -77,10 +152,31 @@ public class AsyncNeuralNetwork<I, O>{
 		this(networks, networks.length);
 	}
 	
-	// internal constructor and configuration
+	// configuration of the constructors
 	private AsyncNeuralNetwork(NeuralNetwork<I, O>[] networks, int producerCount){
-		this.networks = networks;
-		this.queue = new LinkedBlockingQueue<AsyncDataContainer>();
+		this(new Builder<>(networks).producers(producerCount));
+	}
+	
+	// internal constructor and configuration
+	private AsyncNeuralNetwork(Builder<I, O> builder){
+		this.networks = builder.networks;
+		this.batchSize = builder.batchSize;
+		this.batchTimeout = builder.batchTimeout;
+		this.inputArrays = builder.inputArrays;
+		this.outputArrays = builder.outputArrays;
+		this.deadline = builder.deadline;
+		this.rejectionPolicy = builder.rejectionPolicy;
+		this.inFlight = builder.coalesce == true ? new ConcurrentHashMap<>() : null;
+		if(builder.ringBufferCapacity > 0)
+			this.queue = transport(
+				new RingBuffer<AsyncDataContainer>(builder.ringBufferCapacity, builder.waitStrategy)
+			);
+		else if(builder.capacity > 0)
+			this.queue = transport(new LinkedBlockingQueue<AsyncDataContainer>(builder.capacity));
+		else
+			this.queue = transport(new LinkedBlockingQueue<AsyncDataContainer>());
+		this.metrics = new AsyncNeuralNetworkMetrics(this.queue::size);
+		int producerCount = builder.producerCount;
 		this.producer = Executors.newFixedThreadPool(
 			producerCount,
 			new ThreadFactory(){
@@ -96,9 +192,14 @@ public class AsyncNeuralNetwork<I, O>{
 		// start up all producer thread
 		for(int i = 0; i < producerCount; i++){
 			NeuralNetwork<I, O> network = this.networks[i % this.networks.length];
-			this.producer.execute(
-				() -> this.asyncCalculate(network)
-			);
+			if(this.batchSize > 1)
+				this.producer.execute(
+					() -> this.asyncCalculateBatch(network)
+				);
+			else
+				this.producer.execute(
+					() -> this.asyncCalculate(network)
+				);
 		}
 	}
 	
@@ -114,40 +215,673 @@ public class AsyncNeuralNetwork<I, O>{
 	 * the output state of the neurons inside the last layer
 	 */
 	public Future<O> calculate(I input){
+		return this.calculate(input, this.deadline, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Asynchronously invokes the
+	 * {@link de.ef.neuralnetworks.NeuralNetwork#calculate(double[]) NeuralNetwork.calculate}
+	 * function, the input is dropped if it is not calculated within the given time.
+	 * 
+	 * @param input the state of the neurons inside the first layer
+	 * @param timeout the time until the deadline of the input, zero for none
+	 * @param unit the unit of the timeout
+	 * 
+	 * @return a {@link java.util.concurrent.Future Future} with
+	 * the output state of the neurons inside the last layer, completed with a
+	 * {@link java.util.concurrent.TimeoutException TimeoutException} if the deadline is over or a
+	 * {@link java.util.concurrent.RejectedExecutionException RejectedExecutionException} if the input was rejected
+	 */
+	public Future<O> calculate(I input, long timeout, TimeUnit unit){
 		CompletableFuture<O> outputFuture = new CompletableFuture<O>();
-		this.queue.add(new AsyncDataContainer(input, outputFuture));
+		if(this.inFlight != null){
+			InputKey key = new InputKey(input);
+			CompletableFuture<O> existing = this.inFlight.putIfAbsent(key, outputFuture);
+			// every caller gets its own dependent future, so cancelling or completing it does not affect the others
+			if(existing != null){
+				this.metrics.coalesced();
+				return existing.thenApply(Function.identity());
+			}
+			// the input is not changed while calculated, so the key needs no copy
+			outputFuture.whenComplete((output, t) -> this.inFlight.remove(key, outputFuture));
+			this.submit(new AsyncDataContainer(input, outputFuture, unit.toNanos(timeout)));
+			return outputFuture.thenApply(Function.identity());
+		}
+		this.submit(new AsyncDataContainer(input, outputFuture, unit.toNanos(timeout)));
 		// TODO may hide that Future<Double[]> is CompletableFuture<Double[]>
 		return (Future<O>)outputFuture;
 	}
 	
+	/**
+	 * Invokes the {@link de.ef.neuralnetworks.NeuralNetwork#calculate(double[]) NeuralNetwork.calculate}
+	 * function on a producer thread and waits for its output.
+	 * <p>
+	 * The calling thread is parked until a producer thread has calculated the output and
+	 * unparks it, no {@link java.util.concurrent.Future Future} is created. This is cheap enough
+	 * to be called by a huge number of threads at the same time.
+	 * </p>
+	 * 
+	 * @param input the state of the neurons inside the first layer
+	 * 
+	 * @return the output state of the neurons inside the last layer
+	 * 
+	 * @throws InterruptedException if interrupted while waiting, the input is still calculated
+	 * @throws RejectedExecutionException if the input was rejected
+	 * @throws CompletionException if the calculation failed or the deadline is over, with the exception as cause
+	 */
+	public O calculateBlocking(I input) throws InterruptedException{
+		return this.calculateBlocking(input, this.deadline, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Invokes the {@link de.ef.neuralnetworks.NeuralNetwork#calculate(double[]) NeuralNetwork.calculate}
+	 * function on a producer thread and waits for its output, see {@link #calculateBlocking(Object) calculateBlocking}.
+	 * The input is dropped if it is not calculated within the given time.
+	 * 
+	 * @param input the state of the neurons inside the first layer
+	 * @param timeout the time until the deadline of the input, zero for none
+	 * @param unit the unit of the timeout
+	 * 
+	 * @return the output state of the neurons inside the last layer
+	 * 
+	 * @throws InterruptedException if interrupted while waiting, the input is still calculated
+	 * @throws RejectedExecutionException if the input was rejected
+	 * @throws CompletionException if the calculation failed or the deadline is over, with the exception as cause
+	 */
+	public O calculateBlocking(I input, long timeout, TimeUnit unit) throws InterruptedException{
+		// coalescing needs a shared future
+		if(this.inFlight != null){
+			try{
+				return this.calculate(input, timeout, unit).get();
+			}catch(ExecutionException e){
+				if(e.getCause() instanceof RejectedExecutionException)
+					throw (RejectedExecutionException)e.getCause();
+				throw new CompletionException(e.getCause());
+			}
+		}
+		
+		WaitingDataContainer container = new WaitingDataContainer(input, unit.toNanos(timeout));
+		this.submit(container);
+		while(container.done == false){
+			LockSupport.park(this);
+			if(Thread.interrupted() == true)
+				throw new InterruptedException();
+		}
+		if(container.error instanceof RejectedExecutionException)
+			throw (RejectedExecutionException)container.error;
+		if(container.error != null)
+			throw new CompletionException(container.error);
+		return container.output;
+	}
+	
+	
+	/**
+	 * Returns the metrics of this {@code AsyncNeuralNetwork}, which are recorded all the time.
+	 * 
+	 * @return the metrics
+	 */
+	public AsyncNeuralNetworkMetrics metrics(){
+		return this.metrics;
+	}
+	
+	
+	/**
+	 * Stops all producer threads, the inputs which are calculated at the moment are completed, all
+	 * waiting inputs and all inputs passed afterwards are rejected with a
+	 * {@link java.util.concurrent.RejectedExecutionException RejectedExecutionException}.
+	 */
+	public void shutdown(){
+		this.producer.shutdownNow();
+		this.rejectQueued();
+	}
+	
+	/**
+	 * Returns whether {@link #shutdown() shutdown} was called.
+	 * 
+	 * @return {@code true} if shut down
+	 */
+	public boolean isShutdown(){
+		return this.producer.isShutdown();
+	}
+	
+	/**
+	 * Waits until all producer threads stopped after {@link #shutdown() shutdown}.
+	 * 
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout
+	 * 
+	 * @return {@code true} if all producer threads stopped, {@code false} if the time is over
+	 * 
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException{
+		return this.producer.awaitTermination(timeout, unit);
+	}
+	
+	
+	// queues the input, rejects it if shut down
+	private void submit(AsyncDataContainer container){
+		this.metrics.submitted();
+		if(this.producer.isShutdown() == true){
+			this.metrics.rejected();
+			container.fail(new RejectedExecutionException("Shut down"));
+			return;
+		}
+		this.enqueue(container);
+		// the producer threads may have stopped while queueing
+		if(this.producer.isShutdown() == true)
+			this.rejectQueued();
+	}
+	
+	// rejects all waiting inputs
+	private void rejectQueued(){
+		AsyncDataContainer container;
+		while((container = this.queue.poll()) != null){
+			this.metrics.rejected();
+			container.fail(new RejectedExecutionException("Shut down"));
+		}
+	}
+	
+	// queues the input, applies the rejection policy if the queue is full
+	private void enqueue(AsyncDataContainer container){
+		if(this.rejectionPolicy == null){
+			this.queue.put(container);
+			return;
+		}
+		while(this.queue.offer(container) == false){
+			switch(this.rejectionPolicy){
+				case FAIL_FAST:
+					this.metrics.rejected();
+					container.fail(new RejectedExecutionException("Queue full"));
+					return;
+				case CALLER_RUNS:
+					if(container.expire(System.nanoTime()) == false)
+						this.calculate(this.networks[0], container);
+					return;
+				case DROP_OLDEST:
+					AsyncDataContainer oldest = this.queue.poll();
+					if(oldest != null){
+						this.metrics.rejected();
+						oldest.fail(new RejectedExecutionException("Dropped for newer input"));
+					}
+					break;
+			}
+		}
+	}
+	
+	// calculates the output of a single input, an exception only fails this input
+	private void calculate(NeuralNetwork<I, O> network, AsyncDataContainer container){
+		long start = System.nanoTime();
+		this.metrics.started(start - container.created);
+		O output;
+		try{
+			output = network.calculate(container.input);
+		}catch(Throwable t){
+			this.metrics.failed();
+			container.fail(t);
+			return;
+		}
+		long end = System.nanoTime();
+		this.metrics.calculated(end - start);
+		container.complete(output);
+		this.metrics.completed(1, end);
+	}
 	
-	// TODO may overwork
 	private void asyncCalculate(NeuralNetwork<I, O> network){
 		while(this.producer.isShutdown() == false){
 			AsyncDataContainer container;
 			try{
 				container = this.queue.take();
-				
-				O output = network.calculate(container.input);
-				container.outputFuture.complete(output);
-			}catch(Throwable t){
-				this.producer.shutdown();
-				throw new RuntimeException(t);
+			}catch(InterruptedException e){
+				return;
 			}
+			// drop expired input before calculating
+			if(container.expire(System.nanoTime()) == false)
+				this.calculate(network, container);
 		}
 	}
 	
+	private void asyncCalculateBatch(NeuralNetwork<I, O> network){
+		List<AsyncDataContainer> batch = new ArrayList<>(this.batchSize);
+		while(this.producer.isShutdown() == false){
+			try{
+				this.takeBatch(batch);
+			}catch(InterruptedException e){
+				// shut down while waiting for more inputs
+				for(AsyncDataContainer container : batch){
+					this.metrics.rejected();
+					container.fail(new RejectedExecutionException("Shut down"));
+				}
+				return;
+			}
+			// drop expired inputs before calculating
+			long now = System.nanoTime();
+			batch.removeIf(container -> container.expire(now));
+			
+			int count = batch.size();
+			if(count == 1)
+				this.calculate(network, batch.get(0));
+			else if(count > 1){
+				I inputs[] = this.inputArrays.apply(count);
+				O outputs[] = this.outputArrays.apply(count);
+				for(int i = 0; i < count; i++)
+					inputs[i] = batch.get(i).input;
+				long start = System.nanoTime();
+				boolean calculated;
+				try{
+					network.calculateBatch(inputs, outputs);
+					calculated = true;
+				}catch(Throwable t){
+					calculated = false;
+				}
+				long end = System.nanoTime();
+				if(calculated == true){
+					for(int i = 0; i < count; i++)
+						this.metrics.started(start - batch.get(i).created);
+					this.metrics.calculated(end - start);
+				}
+				// calculate every input on its own if the batch failed, so only the failing inputs fail
+				for(int i = 0; i < count; i++){
+					if(calculated == true)
+						batch.get(i).complete(outputs[i]);
+					else
+						this.calculate(network, batch.get(i));
+				}
+				if(calculated == true)
+					this.metrics.completed(count, end);
+			}
+			batch.clear();
+		}
+	}
+	
+	// waits for the first input, then takes more inputs until the batch
+	// is full or the timeout since the first input is over
+	private void takeBatch(List<AsyncDataContainer> batch) throws InterruptedException{
+		batch.add(this.queue.take());
+		this.queue.drainTo(batch, this.batchSize - batch.size());
+		long deadline = System.nanoTime() + this.batchTimeout;
+		while(batch.size() < this.batchSize){
+			long remaining = deadline - System.nanoTime();
+			if(remaining <= 0)
+				break;
+			AsyncDataContainer container = this.queue.poll(remaining, TimeUnit.NANOSECONDS);
+			if(container == null)
+				break;
+			batch.add(container);
+			this.queue.drainTo(batch, this.batchSize - batch.size());
+		}
+	}
+	
+	
+	
+	// passes the inputs to the producer threads
+	private interface Transport<E>{
+		
+		public void put(E element);
+		
+		public boolean offer(E element);
+		
+		public E poll();
+		
+		public E take() throws InterruptedException;
+		
+		public E poll(long timeout, TimeUnit unit) throws InterruptedException;
+		
+		public int drainTo(Collection<? super E> collection, int maxElements);
+		
+		public int size();
+	}
+	
+	private static <E> Transport<E> transport(BlockingQueue<E> queue){
+		return new Transport<E>(){
+			@Override
+			public void put(E element){
+				queue.add(element);
+			}
+			
+			@Override
+			public boolean offer(E element){
+				return queue.offer(element);
+			}
+			
+			@Override
+			public E poll(){
+				return queue.poll();
+			}
+			
+			@Override
+			public E take() throws InterruptedException{
+				return queue.take();
+			}
+			
+			@Override
+			public E poll(long timeout, TimeUnit unit) throws InterruptedException{
+				return queue.poll(timeout, unit);
+			}
+			
+			@Override
+			public int drainTo(Collection<? super E> collection, int maxElements){
+				return queue.drainTo(collection, maxElements);
+			}
+			
+			@Override
+			public int size(){
+				return queue.size();
+			}
+		};
+	}
+	
+	private static <E> Transport<E> transport(RingBuffer<E> buffer){
+		return new Transport<E>(){
+			@Override
+			public void put(E element){
+				buffer.put(element);
+			}
+			
+			@Override
+			public boolean offer(E element){
+				return buffer.offer(element);
+			}
+			
+			@Override
+			public E poll(){
+				return buffer.poll();
+			}
+			
+			@Override
+			public E take() throws InterruptedException{
+				return buffer.take();
+			}
+			
+			@Override
+			public E poll(long timeout, TimeUnit unit) throws InterruptedException{
+				return buffer.poll(timeout, unit);
+			}
+			
+			@Override
+			public int drainTo(Collection<? super E> collection, int maxElements){
+				return buffer.drainTo(collection, maxElements);
+			}
+			
+			@Override
+			public int size(){
+				return buffer.size();
+			}
+		};
+	}
+	
 	
 	
 	private class AsyncDataContainer{
 		
 		private final I input;
 		private final CompletableFuture<O> outputFuture;
+		// System.nanoTime of the creation and of the deadline, only if expiring
+		private final long created;
+		private final boolean expiring;
+		private final long deadline;
 		
 		
-		public AsyncDataContainer(I input, CompletableFuture<O> outputFuture){
+		public AsyncDataContainer(I input, CompletableFuture<O> outputFuture, long timeout){
 			this.input = input;
 			this.outputFuture = outputFuture;
+			this.created = System.nanoTime();
+			this.expiring = timeout > 0;
+			this.deadline = this.created + timeout;
+		}
+		
+		
+		// passes the output to the caller
+		void complete(O output){
+			this.outputFuture.complete(output);
+		}
+		
+		// passes the exception to the caller
+		void fail(Throwable t){
+			this.outputFuture.completeExceptionally(t);
+		}
+		
+		// fails the input and returns true if its deadline is over
+		boolean expire(long now){
+			if(this.expiring == false || now - this.deadline < 0)
+				return false;
+			AsyncNeuralNetwork.this.metrics.expired();
+			this.fail(new TimeoutException("Deadline over"));
+			return true;
+		}
+	}
+	
+	// container of a caller parked in calculateBlocking
+	private class WaitingDataContainer
+		extends AsyncDataContainer{
+		
+		private final Thread caller;
+		// written before done, read after done
+		private O output;
+		private Throwable error;
+		private volatile boolean done = false;
+		
+		
+		public WaitingDataContainer(I input, long timeout){
+			super(input, null, timeout);
+			this.caller = Thread.currentThread();
+		}
+		
+		
+		@Override
+		void complete(O output){
+			this.output = output;
+			this.done = true;
+			LockSupport.unpark(this.caller);
+		}
+		
+		@Override
+		void fail(Throwable t){
+			this.error = t;
+			this.done = true;
+			LockSupport.unpark(this.caller);
+		}
+	}
+	
+	
+	
+	/**
+	 * The enum {@code RejectionPolicy} contains what happens to an input if
+	 * the queue of an {@link de.ef.neuralnetworks.AsyncNeuralNetwork AsyncNeuralNetwork} is full.
+	 */
+	public static enum RejectionPolicy{
+		
+		/**
+		 * The input is rejected, its output completes with a
+		 * {@link java.util.concurrent.RejectedExecutionException RejectedExecutionException}.
+		 */
+		FAIL_FAST,
+		
+		/**
+		 * The input is calculated by the calling thread with the first neural-network,
+		 * which <u>must</u> be <b>thread-safe</b>.
+		 */
+		CALLER_RUNS,
+		
+		/**
+		 * The oldest waiting input is dropped to make space, its output completes with a
+		 * {@link java.util.concurrent.RejectedExecutionException RejectedExecutionException}.
+		 */
+		DROP_OLDEST
+	}
+	
+	
+	
+	/**
+	 * The class {@code Builder} configures an {@link de.ef.neuralnetworks.AsyncNeuralNetwork AsyncNeuralNetwork}
+	 * beyond the options of its constructors.
+	 * 
+	 * @param I input type
+	 * @param O output type
+	 */
+	public static class Builder<I, O>{
+		
+		private final NeuralNetwork<I, O>[] networks;
+		private int producerCount;
+		private int batchSize = 1;
+		private long batchTimeout = 0;
+		private IntFunction<I[]> inputArrays;
+		private IntFunction<O[]> outputArrays;
+		private int ringBufferCapacity = 0;
+		private RingBuffer.WaitStrategy waitStrategy;
+		private int capacity = 0;
+		private RejectionPolicy rejectionPolicy;
+		private long deadline = 0;
+		private boolean coalesce = false;
+		
+		
+		/**
+		 * Creates a builder for one neural-network and one producer thread.
+		 * 
+		 * @param network the asynchronously accessed
+		 * {@link de.ef.neuralnetworks.NeuralNetwork NeuralNetwork}
+		 */
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		public Builder(NeuralNetwork<I, O> network){
+			this(new NeuralNetwork[]{network});
+		}
+		
+		/**
+		 * Creates a builder for {@code networks.length} neural-networks
+		 * and {@code networks.length} producer threads.
+		 * 
+		 * @param networks the asynchronously accessed
+		 * {@link de.ef.neuralnetworks.NeuralNetwork NeuralNetworks}
+		 */
+		public Builder(NeuralNetwork<I, O>[] networks){
+			if(networks.length == 0)
+				throw new IllegalArgumentException("Network count not possible: " + networks.length);
+			this.networks = networks.clone();
+			this.producerCount = networks.length;
+		}
+		
+		
+		/**
+		 * Sets the number of producer threads, if it is bigger than the number of
+		 * neural-networks they are shared and <u>must</u> be <b>thread-safe</b>.
+		 * 
+		 * @param producerCount number of used producer threads
+		 * 
+		 * @return this builder
+		 */
+		public Builder<I, O> producers(int producerCount){
+			if(producerCount < 1)
+				throw new IllegalArgumentException("Producer count not possible: " + producerCount);
+			this.producerCount = producerCount;
+			return this;
+		}
+		
+		/**
+		 * Enables micro-batching, every producer thread calculates up to {@code batchSize} inputs
+		 * at once and waits at most {@code timeout} after the first input for more inputs.
+		 * The array functions create the input and output arrays of a batch, for example
+		 * {@code double[][]::new}.
+		 * 
+		 * @param batchSize maximum number of inputs calculated at once
+		 * @param timeout maximum time to wait for more inputs, zero to only take already waiting inputs
+		 * @param unit unit of the timeout
+		 * @param inputArrays creates an input array of the given length
+		 * @param outputArrays creates an output array of the given length
+		 * 
+		 * @return this builder
+		 */
+		public Builder<I, O> batch(
+				int batchSize, long timeout, TimeUnit unit,
+				IntFunction<I[]> inputArrays, IntFunction<O[]> outputArrays){
+			if(batchSize < 1)
+				throw new IllegalArgumentException("Batch size not possible: " + batchSize);
+			if(timeout < 0)
+				throw new IllegalArgumentException("Timeout not possible: " + timeout);
+			this.batchSize = batchSize;
+			this.batchTimeout = unit.toNanos(timeout);
+			this.inputArrays = inputArrays;
+			this.outputArrays = outputArrays;
+			return this;
+		}
+		
+		
+		/**
+		 * Passes the inputs to the producer threads by a {@link de.ef.neuralnetworks.util.RingBuffer RingBuffer}
+		 * instead of a {@link java.util.concurrent.LinkedBlockingQueue LinkedBlockingQueue},
+		 * {@link de.ef.neuralnetworks.AsyncNeuralNetwork#calculate calculate} waits
+		 * if the ring buffer is full and no rejection policy is set by {@link #capacity capacity}.
+		 * 
+		 * @param capacity the minimum number of waiting inputs
+		 * @param waitStrategy how producer threads wait for inputs
+		 * 
+		 * @return this builder
+		 */
+		public Builder<I, O> ringBuffer(int capacity, RingBuffer.WaitStrategy waitStrategy){
+			if(capacity < 1)
+				throw new IllegalArgumentException("Capacity not possible: " + capacity);
+			this.ringBufferCapacity = capacity;
+			this.waitStrategy = waitStrategy;
+			return this;
+		}
+		
+		
+		/**
+		 * Bounds the number of waiting inputs, if the queue is full the rejection policy
+		 * decides what happens to a new input. With a ring buffer the capacity of the
+		 * ring buffer is used instead.
+		 * 
+		 * @param capacity the maximum number of waiting inputs
+		 * @param rejectionPolicy what happens to a new input if the queue is full
+		 * 
+		 * @return this builder
+		 */
+		public Builder<I, O> capacity(int capacity, RejectionPolicy rejectionPolicy){
+			if(capacity < 1)
+				throw new IllegalArgumentException("Capacity not possible: " + capacity);
+			if(rejectionPolicy == null)
+				throw new NullPointerException();
+			this.capacity = capacity;
+			this.rejectionPolicy = rejectionPolicy;
+			return this;
+		}
+		
+		/**
+		 * Sets the deadline of every input without its own deadline, inputs still
+		 * waiting after this time are dropped without calculating them.
+		 * 
+		 * @param timeout the time until the deadline of an input, zero for none
+		 * @param unit the unit of the timeout
+		 * 
+		 * @return this builder
+		 */
+		public Builder<I, O> deadline(long timeout, TimeUnit unit){
+			if(timeout < 0)
+				throw new IllegalArgumentException("Timeout not possible: " + timeout);
+			this.deadline = unit.toNanos(timeout);
+			return this;
+		}
+		
+		
+		/**
+		 * Enables coalescing, an input equal to an input which is still waiting or calculated
+		 * is not queued, its output is the output of the earlier input. Primitive arrays are
+		 * compared by content, other inputs by {@code equals}.
+		 * 
+		 * @return this builder
+		 */
+		public Builder<I, O> coalesce(){
+			this.coalesce = true;
+			return this;
+		}
+		
+		
+		/**
+		 * Creates the {@code AsyncNeuralNetwork} and starts its producer threads.
+		 * 
+		 * @return a new {@code AsyncNeuralNetwork}
+		 */
+		public AsyncNeuralNetwork<I, O> build(){
+			return new AsyncNeuralNetwork<>(this);
 		}
 	}
 }
@@ -0,0 +1,251 @@
+package de.ef.neuralnetworks;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import de.ef.neuralnetworks.util.LatencyHistogram;
+
+/**
+ * The class {@code AsyncNeuralNetworkMetrics} contains the metrics of an
+ * {@link de.ef.neuralnetworks.AsyncNeuralNetwork AsyncNeuralNetwork}.
+ * <p>
+ * The counters are striped ({@link java.util.concurrent.atomic.LongAdder LongAdder}) and the
+ * latencies are recorded by {@link de.ef.neuralnetworks.util.LatencyHistogram LatencyHistograms},
+ * so recording never blocks the calling or producer threads. The queue wait is the time from
+ * passing an input until a producer thread starts calculating it, the compute time is the
+ * time of one calculation, which is a whole batch with micro-batching.
+ * All values are read without stopping the recording, so they are a snapshot of moving numbers.
+ * </p>
+ * <p>
+ * With {@link #register(String) register} the metrics are available as an MBean of the platform
+ * MBean server, see {@link de.ef.neuralnetworks.AsyncNeuralNetworkMetricsMBean AsyncNeuralNetworkMetricsMBean}.
+ * </p>
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 3.3
+ */
+public class AsyncNeuralNetworkMetrics
+	implements AsyncNeuralNetworkMetricsMBean{
+	
+	/**
+	 * Time the completions per second are averaged over.
+	 */
+	private final static long RATE_WINDOW = TimeUnit.SECONDS.toNanos(1);
+	
+	
+	
+	private final IntSupplier queueDepth;
+	private final LongAdder submitted, completed, failed, rejected, expired, coalesced;
+	private final LatencyHistogram queueWait, compute;
+	
+	// completions since the start of the current window
+	private final AtomicLong windowStart;
+	private final LongAdder windowCompleted;
+	private volatile double completionRate;
+	
+	private volatile ObjectName name;
+	
+	
+	AsyncNeuralNetworkMetrics(IntSupplier queueDepth){
+		this.queueDepth = queueDepth;
+		this.submitted = new LongAdder();
+		this.completed = new LongAdder();
+		this.failed = new LongAdder();
+		this.rejected = new LongAdder();
+		this.expired = new LongAdder();
+		this.coalesced = new LongAdder();
+		this.queueWait = new LatencyHistogram();
+		this.compute = new LatencyHistogram();
+		this.windowStart = new AtomicLong(System.nanoTime());
+		this.windowCompleted = new LongAdder();
+	}
+	
+	
+	// recording
+	void submitted(){
+		this.submitted.increment();
+	}
+	
+	void rejected(){
+		this.rejected.increment();
+	}
+	
+	void expired(){
+		this.expired.increment();
+	}
+	
+	void coalesced(){
+		this.coalesced.increment();
+	}
+	
+	void failed(){
+		this.failed.increment();
+	}
+	
+	void started(long waited){
+		this.queueWait.record(waited);
+	}
+	
+	void calculated(long time){
+		this.compute.record(time);
+	}
+	
+	void completed(int count, long now){
+		this.completed.add(count);
+		this.windowCompleted.add(count);
+		// the thread which ends the window calculates the rate
+		long start = this.windowStart.get();
+		if(now - start >= RATE_WINDOW && this.windowStart.compareAndSet(start, now))
+			this.completionRate = this.windowCompleted.sumThenReset() * 1e9 / (now - start);
+	}
+	
+	
+	/**
+	 * Returns the histogram of the times inputs waited in the queue.
+	 * 
+	 * @return the queue wait histogram in nanoseconds
+	 */
+	public LatencyHistogram queueWait(){
+		return this.queueWait;
+	}
+	
+	/**
+	 * Returns the histogram of the calculation times.
+	 * 
+	 * @return the compute time histogram in nanoseconds
+	 */
+	public LatencyHistogram compute(){
+		return this.compute;
+	}
+	
+	
+	@Override
+	public int getQueueDepth(){
+		return this.queueDepth.getAsInt();
+	}
+	
+	@Override
+	public long getSubmitted(){
+		return this.submitted.sum();
+	}
+	
+	@Override
+	public long getCompleted(){
+		return this.completed.sum();
+	}
+	
+	@Override
+	public long getFailed(){
+		return this.failed.sum();
+	}
+	
+	@Override
+	public long getRejected(){
+		return this.rejected.sum();
+	}
+	
+	@Override
+	public long getExpired(){
+		return this.expired.sum();
+	}
+	
+	/**
+	 * Returns the completed inputs per second of the last full second,
+	 * or of the time since the last completion if that was longer ago.
+	 */
+	@Override
+	public double getCompletionsPerSecond(){
+		long start = this.windowStart.get(), elapsed = System.nanoTime() - start;
+		if(elapsed >= 2 * RATE_WINDOW)
+			return this.windowCompleted.sum() * 1e9 / elapsed;
+		return this.completionRate;
+	}
+	
+	@Override
+	public long getCoalesced(){
+		return this.coalesced.sum();
+	}
+	
+	@Override
+	public long getQueueWaitP50(){
+		return this.queueWait.quantile(0.5);
+	}
+	
+	@Override
+	public long getQueueWaitP99(){
+		return this.queueWait.quantile(0.99);
+	}
+	
+	@Override
+	public long getQueueWaitP999(){
+		return this.queueWait.quantile(0.999);
+	}
+	
+	@Override
+	public long getComputeP50(){
+		return this.compute.quantile(0.5);
+	}
+	
+	@Override
+	public long getComputeP99(){
+		return this.compute.quantile(0.99);
+	}
+	
+	@Override
+	public long getComputeP999(){
+		return this.compute.quantile(0.999);
+	}
+	
+	/**
+	 * Resets all counters and histograms.
+	 */
+	@Override
+	public void reset(){
+		this.submitted.reset();
+		this.completed.reset();
+		this.failed.reset();
+		this.rejected.reset();
+		this.expired.reset();
+		this.coalesced.reset();
+		this.queueWait.reset();
+		this.compute.reset();
+	}
+	
+	
+	/**
+	 * Registers the metrics at the platform MBean server with the object name
+	 * {@code de.ef.neuralnetworks:type=AsyncNeuralNetwork,name=<name>}.
+	 * 
+	 * @param name the name of the asynchronous neural-network
+	 * 
+	 * @return the object name of the MBean
+	 * 
+	 * @throws JMException if the name is not possible or already registered
+	 */
+	public ObjectName register(String name) throws JMException{
+		ObjectName objectName = new ObjectName("de.ef.neuralnetworks:type=AsyncNeuralNetwork,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		this.name = objectName;
+		return objectName;
+	}
+	
+	/**
+	 * Removes the metrics from the platform MBean server, if they were registered.
+	 * 
+	 * @throws JMException if the MBean could not be removed
+	 */
+	public void unregister() throws JMException{
+		ObjectName name = this.name;
+		if(name != null){
+			this.name = null;
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package de.ef.neuralnetworks;
+
+/**
+ * The interface {@code AsyncNeuralNetworkMetricsMBean} is the JMX view of
+ * {@link de.ef.neuralnetworks.AsyncNeuralNetworkMetrics AsyncNeuralNetworkMetrics},
+ * all times are in nanoseconds.
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 3.3
+ */
+public interface AsyncNeuralNetworkMetricsMBean{
+	
+	public int getQueueDepth();
+	
+	public long getSubmitted();
+	
+	public long getCompleted();
+	
+	public long getFailed();
+	
+	public long getRejected();
+	
+	public long getExpired();
+	
+	public long getCoalesced();
+	
+	public double getCompletionsPerSecond();
+	
+	public long getQueueWaitP50();
+	
+	public long getQueueWaitP99();
+	
+	public long getQueueWaitP999();
+	
+	public long getComputeP50();
+	
+	public long getComputeP99();
+	
+	public long getComputeP999();
+	
+	public void reset();
+}
@@ -0,0 +1,388 @@
+package de.ef.neuralnetworks;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The class {@code CachingNeuralNetwork} remembers the outputs of the most recently used inputs
+ * of a {@link de.ef.neuralnetworks.NeuralNetwork NeuralNetwork}, so repeated inputs are not calculated again.
+ * <p>
+ * Inputs which are primitive arrays are compared by their content, hashing them reads the primitive
+ * values without boxing. A looked up input is not copied, only an input which is added to the cache.
+ * Other inputs are compared by {@code equals}, object arrays by {@code deepEquals}, they and the elements of
+ * object arrays <u>must not</u> be changed after they are passed.
+ * The cache is split into segments by the hash of the input, every segment drops its least recently
+ * used output if it is full, so threads calculating different inputs rarely wait for each other.
+ * Outputs are copied into and out of the cache if they are arrays, so callers may change them.
+ * </p>
+ * <p>
+ * Training the neural-network by this class removes all outputs from the cache. If the neural-network
+ * is a {@link de.ef.neuralnetworks.CopyableNeuralNetwork CopyableNeuralNetwork}, a change of its
+ * {@link de.ef.neuralnetworks.CopyableNeuralNetwork#version() version} also makes all cached outputs outdated,
+ * so it can be trained directly, for example as prototype of a {@link de.ef.neuralnetworks.NeuralNetworkPool NeuralNetworkPool}.
+ * </p>
+ * <p>
+ * The cache itself is <b>thread-safe</b>, the class is as thread-safe as the wrapped neural-network.
+ * It cannot be serialized, serialize the wrapped neural-network instead.
+ * </p>
+ * 
+ * @param I input type
+ * @param O output type
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 3.3
+ */
+public class CachingNeuralNetwork<I, O>
+	implements NeuralNetwork<I, O>{
+	
+	/**
+	 * Make always same as @version in JavaDoc in format xxx.yyy.zzz
+	 */
+	private final static long serialVersionUID = 001_000_000L;
+	
+	/**
+	 * Maximum number of segments of the cache.
+	 */
+	private final static int MAX_SEGMENTS = 16;
+	
+	
+	
+	private final NeuralNetwork<I, O> network;
+	private final int capacity;
+	private final Segment segments[];
+	// counts invalidations, the version of a copyable network is added
+	private final AtomicLong invalidations;
+	private final LongAdder hits, misses, evictions;
+	
+	
+	/**
+	 * Creates a new {@code CachingNeuralNetwork} which remembers the outputs of
+	 * up to {@code capacity} inputs.
+	 * 
+	 * @param network the wrapped neural-network
+	 * @param capacity the maximum number of cached outputs
+	 * 
+	 * @throws IllegalArgumentException if the capacity is less than one
+	 */
+	public CachingNeuralNetwork(NeuralNetwork<I, O> network, int capacity){
+		if(capacity < 1)
+			throw new IllegalArgumentException("Capacity not possible: " + capacity);
+		
+		this.network = network;
+		this.capacity = capacity;
+		// every segment should hold some outputs, the count is a power of two
+		int count = Integer.highestOneBit(Math.max(1, Math.min(MAX_SEGMENTS, capacity / 16)));
+		this.invalidations = new AtomicLong();
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+		this.evictions = new LongAdder();
+		this.segments = new Segment[count];
+		for(int i = 0; i < count; i++){
+			// spread the capacity, the first segments get the remainder
+			this.segments[i] = new Segment(capacity / count + (i < capacity % count ? 1 : 0), this.evictions);
+		}
+	}
+	
+	
+	@Override
+	public void init(int inputSize, int hiddenSizes[], int outputSize, Map<String, Object> properties) throws IOException{
+		this.network.init(inputSize, hiddenSizes, outputSize, properties);
+		this.invalidate();
+	}
+	
+	
+	@Override
+	public O calculate(I input) throws IOException{
+		InputKey key = new InputKey(input);
+		long generation = this.generation();
+		O output = this.get(key, generation);
+		if(output == null){
+			output = this.network.calculate(input);
+			this.put(key, output, generation);
+		}
+		return copy(output);
+	}
+	
+	@Override
+	public O calculate(I input, O output) throws IOException{
+		if(output.getClass().isArray() == false)
+			return this.calculate(input);
+		
+		InputKey key = new InputKey(input);
+		long generation = this.generation();
+		O cached = this.get(key, generation);
+		if(cached == null){
+			cached = this.network.calculate(input, output);
+			this.put(key, cached, generation);
+			return cached;
+		}
+		System.arraycopy(cached, 0, output, 0, Array.getLength(cached));
+		return output;
+	}
+	
+	/**
+	 * Takes the cached outputs and calculates all other inputs together with
+	 * {@link de.ef.neuralnetworks.NeuralNetwork#calculateBatch calculateBatch} of the neural-network.
+	 */
+	@Override
+	public void calculateBatch(I inputs[], O outputs[]) throws IOException{
+		if(inputs.length != outputs.length)
+			throw new IllegalArgumentException("Batch sizes do not match: " + inputs.length + " != " + outputs.length);
+		
+		long generation = this.generation();
+		InputKey keys[] = new InputKey[inputs.length];
+		int missing[] = new int[inputs.length], count = 0;
+		for(int i = 0; i < inputs.length; i++){
+			keys[i] = new InputKey(inputs[i]);
+			O output = this.get(keys[i], generation);
+			if(output == null)
+				missing[count++] = i;
+			else
+				outputs[i] = copy(output);
+		}
+		if(count == 0)
+			return;
+		
+		I missingInputs[] = Arrays.copyOf(inputs, count);
+		O missingOutputs[] = Arrays.copyOf(outputs, count);
+		// pass the outputs of the same slots, the neural-network may reuse them
+		for(int i = 0; i < count; i++){
+			missingInputs[i] = inputs[missing[i]];
+			missingOutputs[i] = outputs[missing[i]];
+		}
+		this.network.calculateBatch(missingInputs, missingOutputs);
+		for(int i = 0; i < count; i++){
+			outputs[missing[i]] = missingOutputs[i];
+			this.put(keys[missing[i]], missingOutputs[i], generation);
+		}
+	}
+	
+	
+	/**
+	 * Trains the neural-network and removes all outputs from the cache.
+	 */
+	@Override
+	public double train(I input, O output) throws IOException{
+		try{
+			return this.network.train(input, output);
+		}finally{
+			this.invalidate();
+		}
+	}
+	
+	/**
+	 * Trains the neural-network and removes all outputs from the cache.
+	 */
+	@Override
+	public double train(I inputs[], O outputs[]) throws IOException{
+		try{
+			return this.network.train(inputs, outputs);
+		}finally{
+			this.invalidate();
+		}
+	}
+	
+	@Override
+	public InferenceModel<I, O> freeze() throws IOException{
+		return this.network.freeze();
+	}
+	
+	
+	/**
+	 * Removes all outputs from the cache, outputs calculated at the same time are not cached.
+	 */
+	public void invalidate(){
+		this.invalidations.incrementAndGet();
+		for(Segment segment : this.segments){
+			synchronized(segment){
+				segment.clear();
+			}
+		}
+	}
+	
+	
+	// returns the cached output, null if missing or outdated
+	@SuppressWarnings("unchecked")
+	private O get(InputKey key, long generation){
+		Segment segment = this.segment(key);
+		CachedOutput entry;
+		synchronized(segment){
+			entry = segment.get(key);
+			if(entry != null && entry.generation != generation){
+				segment.remove(key);
+				entry = null;
+			}
+		}
+		if(entry == null){
+			this.misses.increment();
+			return null;
+		}
+		this.hits.increment();
+		return (O)entry.output;
+	}
+	
+	// caches a copy of input and output, if the output was calculated with the given generation
+	private void put(InputKey key, O output, long generation){
+		if(output == null)
+			return;
+		CachedOutput entry = new CachedOutput(copy(output), generation);
+		key = key.copy();
+		Segment segment = this.segment(key);
+		synchronized(segment){
+			// the neural-network changed while calculating
+			if(this.generation() == generation)
+				segment.put(key, entry);
+		}
+	}
+	
+	private Segment segment(InputKey key){
+		// spread the upper bits, the lower bits are used by the hash map
+		int hash = key.hashCode() ^ (key.hashCode() >>> 16);
+		return this.segments[(hash >>> 8) & (this.segments.length - 1)];
+	}
+	
+	private long generation(){
+		long generation = this.invalidations.get();
+		if(this.network instanceof CopyableNeuralNetwork)
+			generation += ((CopyableNeuralNetwork<?, ?>)this.network).version();
+		return generation;
+	}
+	
+	// copies arrays, other objects are returned
+	@SuppressWarnings("unchecked")
+	private static <T> T copy(T value){
+		if(value.getClass().isArray() == false)
+			return value;
+		int length = Array.getLength(value);
+		Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+		System.arraycopy(value, 0, copy, 0, length);
+		return (T)copy;
+	}
+	
+	
+	/**
+	 * Returns the wrapped neural-network.
+	 * 
+	 * @return the neural-network
+	 */
+	public NeuralNetwork<I, O> network(){
+		return this.network;
+	}
+	
+	/**
+	 * Returns the maximum number of cached outputs.
+	 * 
+	 * @return the capacity
+	 */
+	public int capacity(){
+		return this.capacity;
+	}
+	
+	/**
+	 * Returns the number of cached outputs, including outdated outputs which are not removed yet.
+	 * 
+	 * @return the number of cached outputs
+	 */
+	public int size(){
+		int size = 0;
+		for(Segment segment : this.segments){
+			synchronized(segment){
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+	
+	/**
+	 * Returns the number of inputs whose output was taken from the cache.
+	 * 
+	 * @return the number of hits
+	 */
+	public long hits(){
+		return this.hits.sum();
+	}
+	
+	/**
+	 * Returns the number of inputs whose output had to be calculated.
+	 * 
+	 * @return the number of misses
+	 */
+	public long misses(){
+		return this.misses.sum();
+	}
+	
+	/**
+	 * Returns the number of outputs dropped because the cache was full,
+	 * many evictions with a low hit rate indicate a too small capacity.
+	 * 
+	 * @return the number of evictions
+	 */
+	public long evictions(){
+		return this.evictions.sum();
+	}
+	
+	/**
+	 * Returns the share of inputs whose output was taken from the cache.
+	 * 
+	 * @return the hit rate from {@code 0} to {@code 1}, zero if nothing was calculated
+	 */
+	public double hitRate(){
+		long hits = this.hits.sum(), total = hits + this.misses.sum();
+		return total == 0 ? 0 : (double)hits / total;
+	}
+	
+	/**
+	 * Resets the number of hits, misses and evictions.
+	 */
+	public void resetStatistics(){
+		this.hits.reset();
+		this.misses.reset();
+		this.evictions.reset();
+	}
+	
+	
+	
+	// least recently used cache, guarded by its own monitor
+	private static class Segment
+		extends LinkedHashMap<InputKey, CachedOutput>{
+		
+		private final static long serialVersionUID = 1L;
+		
+		private final int capacity;
+		private final LongAdder evictions;
+		
+		
+		public Segment(int capacity, LongAdder evictions){
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+			this.evictions = evictions;
+		}
+		
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<InputKey, CachedOutput> eldest){
+			if(this.size() <= this.capacity)
+				return false;
+			this.evictions.increment();
+			return true;
+		}
+	}
+	
+	private static class CachedOutput{
+		
+		private final Object output;
+		private final long generation;
+		
+		
+		public CachedOutput(Object output, long generation){
+			this.output = output;
+			this.generation = generation;
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package de.ef.neuralnetworks;
+
+import java.io.IOException;
+
+/**
+ * The interface {@code CopyableNeuralNetwork} extends a {@link de.ef.neuralnetworks.NeuralNetwork NeuralNetwork}
+ * with fast copies, which do not need serialization.
+ * <p>
+ * A copy is independent of its source, but the state of the source can be copied into it again
+ * whenever the {@link #version() version} of the source changed. This is used by the
+ * {@link de.ef.neuralnetworks.NeuralNetworkPool NeuralNetworkPool} to keep a copy for every thread.
+ * </p>
+ * 
+ * @param I input type
+ * @param O output type
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 3.3
+ */
+public interface CopyableNeuralNetwork<I, O>
+	extends NeuralNetwork<I, O>{
+	
+	/**
+	 * Creates a new neural-network with the same layers and a copy of the current state.
+	 * 
+	 * @return a new neural-network
+	 * 
+	 * @throws IOException if the underlying implementation experienced an error
+	 * @throws IllegalStateException if the neural-network is not initialized
+	 */
+	public CopyableNeuralNetwork<I, O> copy() throws IOException;
+	
+	/**
+	 * Replaces the state of this neural-network with a copy of the state of the given
+	 * neural-network, without allocating new memory.
+	 * 
+	 * @param source a neural-network created by {@link #copy() copy} of this neural-network or the other way around
+	 * 
+	 * @throws IOException if the underlying implementation experienced an error
+	 * @throws IllegalArgumentException if the layers of the source are different
+	 */
+	public void copyFrom(CopyableNeuralNetwork<I, O> source) throws IOException;
+	
+	/**
+	 * Returns a number which changes every time the state of the neural-network changes,
+	 * for example after every training step.
+	 * 
+	 * @return the current version
+	 */
+	public long version();
+}
@@ -0,0 +1,107 @@
+package de.ef.neuralnetworks;
+
+import java.io.IOException;
+
+/**
+ * The interface {@code DataParallelNeuralNetwork} extends a {@link de.ef.neuralnetworks.NeuralNetwork NeuralNetwork}
+ * with replicas, so that several threads can calculate the adjustments of one batch at the same time.
+ * <p>
+ * Every {@link Replica Replica} calculates and sums the adjustments (gradients) of its share of a batch,
+ * the sums of all replicas are then added together and applied to the neural-network at once.
+ * As long as the replicas, their shares and the order of the additions stay the same,
+ * the result does not depend on the number of threads used.
+ * </p>
+ * <p>
+ * <b>Important:</b> Different replicas <b>must</b> be usable by different threads at the same time,
+ * as long as {@link #applyGradients(Replica, int) applyGradients} is not called.
+ * </p>
+ * 
+ * @param I input type
+ * @param O output type
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 3.2
+ */
+public interface DataParallelNeuralNetwork<I, O>
+	extends NeuralNetwork<I, O>{
+	
+	/**
+	 * Creates a new replica of the initialized neural-network with empty gradients.
+	 * A replica always uses the current state of the neural-network.
+	 * 
+	 * @return a new replica
+	 * 
+	 * @throws IOException if the underlying implementation experienced an error
+	 */
+	public Replica<I, O> createReplica() throws IOException;
+	
+	/**
+	 * Changes the neural-network internally based on the gradients of the given replica,
+	 * which are averaged over {@code count} pairs of inputs and expected outputs.
+	 * 
+	 * @param replica the replica containing the summed gradients
+	 * @param count the number of pairs the gradients were summed over
+	 * 
+	 * @throws IOException if the underlying implementation experienced an error
+	 * @throws IllegalArgumentException if the replica was not created by this neural-network
+	 */
+	public void applyGradients(Replica<I, O> replica, int count) throws IOException;
+	
+	
+	
+	/**
+	 * The interface {@code Replica} is the view of one thread on a
+	 * {@link de.ef.neuralnetworks.DataParallelNeuralNetwork DataParallelNeuralNetwork}.
+	 * A replica is <b>not</b> thread-safe itself.
+	 * 
+	 * @param I input type
+	 * @param O output type
+	 * 
+	 * @author Erik Fritzsche
+	 * @version 1.0
+	 * @since 3.2
+	 */
+	public static interface Replica<I, O>{
+		
+		/**
+		 * Calculates an output state like {@link de.ef.neuralnetworks.NeuralNetwork#calculate(I) calculate}.
+		 * 
+		 * @param input the state of the neurons inside the first layer
+		 * 
+		 * @return the output state of the neurons inside the last layer
+		 * 
+		 * @throws IOException if the underlying implementation experienced an error
+		 */
+		public O calculate(I input) throws IOException;
+		
+		/**
+		 * Adds the gradients of {@code length} pairs starting at {@code offset} to the gradients of this replica
+		 * without changing the neural-network.
+		 * 
+		 * @param inputs the states of the neurons inside the first layer
+		 * @param outputs the expected states of the neurons inside the last layer
+		 * @param offset the index of the first pair
+		 * @param length the number of pairs
+		 * 
+		 * @return the total error of the pairs
+		 * 
+		 * @throws IOException if the underlying implementation experienced an error
+		 */
+		public double accumulateGradients(I inputs[], O outputs[], int offset, int length) throws IOException;
+		
+		/**
+		 * Adds the gradients of the other replica to the gradients of this replica.
+		 * 
+		 * @param other a replica of the same neural-network
+		 * 
+		 * @throws IllegalArgumentException if the replica was not created by the same neural-network
+		 */
+		public void addGradients(Replica<I, O> other);
+		
+		/**
+		 * Sets all gradients of this replica to zero.
+		 */
+		public void clearGradients();
+	}
+}
@@ -0,0 +1,63 @@
+package de.ef.neuralnetworks;
+
+import java.util.Map;
+
+/**
+ * The interface {@code InferenceModel} is a read-only {@link de.ef.neuralnetworks.NeuralNetwork NeuralNetwork},
+ * created by {@link de.ef.neuralnetworks.NeuralNetwork#freeze() freeze}.
+ * <p>
+ * A model only calculates outputs, it cannot be initialized or trained and never changes after its creation.
+ * <b>Important:</b> Unlike a neural-network, every implementation <b>must</b> be <b>thread-safe</b>, so that
+ * one model can be shared by all threads instead of a copy of the neural-network for each thread.
+ * </p>
+ * 
+ * @param I input type
+ * @param O output type
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 3.3
+ */
+public interface InferenceModel<I, O>
+	extends NeuralNetwork<I, O>{
+	
+	/**
+	 * A model cannot be initialized.
+	 * 
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public default void init(int inputSize, int hiddenSizes[], int outputSize, Map<String, Object> properties){
+		throw new UnsupportedOperationException("Inference model cannot be initialized");
+	}
+	
+	/**
+	 * A model cannot be trained.
+	 * 
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public default double train(I input, O output){
+		throw new UnsupportedOperationException("Inference model cannot be trained");
+	}
+	
+	/**
+	 * A model cannot be trained.
+	 * 
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public default double train(I inputs[], O outputs[]){
+		throw new UnsupportedOperationException("Inference model cannot be trained");
+	}
+	
+	/**
+	 * A model is already frozen.
+	 * 
+	 * @return this model
+	 */
+	@Override
+	public default InferenceModel<I, O> freeze(){
+		return this;
+	}
+}
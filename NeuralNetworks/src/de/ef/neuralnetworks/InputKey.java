@@ -0,0 +1,79 @@
+package de.ef.neuralnetworks;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+/**
+ * {@code InputKey} makes an input usable as key of a hash map, primitive arrays are compared
+ * by their content without boxing, object arrays by {@code deepEquals} and other inputs by {@code equals}.
+ * The hash is calculated once, the input <u>must not</u> be changed while the key is used.
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 3.3
+ */
+final class InputKey{
+	
+	private final Object input;
+	private final int hash;
+	
+	
+	InputKey(Object input){
+		this(input, hash(input));
+	}
+	
+	private InputKey(Object input, int hash){
+		this.input = input;
+		this.hash = hash;
+	}
+	
+	
+	// a key which does not change if the caller changes an array input
+	InputKey copy(){
+		if(this.input.getClass().isArray() == false)
+			return this;
+		int length = Array.getLength(this.input);
+		Object copy = Array.newInstance(this.input.getClass().getComponentType(), length);
+		System.arraycopy(this.input, 0, copy, 0, length);
+		return new InputKey(copy, this.hash);
+	}
+	
+	
+	private static int hash(Object input){
+		if(input instanceof double[]) return Arrays.hashCode((double[])input);
+		if(input instanceof float[]) return Arrays.hashCode((float[])input);
+		if(input instanceof int[]) return Arrays.hashCode((int[])input);
+		if(input instanceof long[]) return Arrays.hashCode((long[])input);
+		if(input instanceof byte[]) return Arrays.hashCode((byte[])input);
+		if(input instanceof short[]) return Arrays.hashCode((short[])input);
+		if(input instanceof char[]) return Arrays.hashCode((char[])input);
+		if(input instanceof boolean[]) return Arrays.hashCode((boolean[])input);
+		if(input instanceof Object[]) return Arrays.deepHashCode((Object[])input);
+		return input.hashCode();
+	}
+	
+	@Override
+	public int hashCode(){
+		return this.hash;
+	}
+	
+	@Override
+	public boolean equals(Object other){
+		if(other instanceof InputKey == false)
+			return false;
+		InputKey key = (InputKey)other;
+		if(this.hash != key.hash)
+			return false;
+		Object a = this.input, b = key.input;
+		if(a instanceof double[] && b instanceof double[]) return Arrays.equals((double[])a, (double[])b);
+		if(a instanceof float[] && b instanceof float[]) return Arrays.equals((float[])a, (float[])b);
+		if(a instanceof int[] && b instanceof int[]) return Arrays.equals((int[])a, (int[])b);
+		if(a instanceof long[] && b instanceof long[]) return Arrays.equals((long[])a, (long[])b);
+		if(a instanceof byte[] && b instanceof byte[]) return Arrays.equals((byte[])a, (byte[])b);
+		if(a instanceof short[] && b instanceof short[]) return Arrays.equals((short[])a, (short[])b);
+		if(a instanceof char[] && b instanceof char[]) return Arrays.equals((char[])a, (char[])b);
+		if(a instanceof boolean[] && b instanceof boolean[]) return Arrays.equals((boolean[])a, (boolean[])b);
+		if(a instanceof Object[] && b instanceof Object[]) return Arrays.deepEquals((Object[])a, (Object[])b);
+		return a.equals(b);
+	}
+}
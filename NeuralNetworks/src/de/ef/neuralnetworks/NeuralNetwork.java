@@ -2,6 +2,7 @@ package de.ef.neuralnetworks;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.lang.reflect.Array;
 import java.util.Map;
 
 /**
@@ -9,14 +10,15 @@ import java.util.Map;
  * A neural-network is formed from layers of neurons,
  * how these neurons are connected together is up to the implementation.
  * <p>
- * <b>Important:</b> A implementation does <b>not</b> necessary need to be <b>thread-safe</b>.
+ * <b>Important:</b> A implementation does <b>not</b> necessary need to be <b>thread-safe</b>,
+ * but a {@link de.ef.neuralnetworks.InferenceModel InferenceModel} created by {@link #freeze() freeze} is.
  * </p>
  * 
  * @param I input type
  * @param O output type
  * 
  * @author Erik Fritzsche
- * @version 3.0
+ * @version 3.4
  * @since 1.0
  */
 public interface NeuralNetwork<I, O>
@@ -73,6 +75,58 @@ public interface NeuralNetwork<I, O>
 	 */
 	public O calculate(I input) throws IOException;
 	
+	/**
+	 * Calculates an output state based on the given input state and writes it into the given output buffer,
+	 * so that calculating many outputs does not allocate a new output every time.
+	 * <p>
+	 * The default implementation calls {@link #calculate(I) calculate} and copies the result
+	 * into the buffer if the output type is an array, otherwise the result is returned.
+	 * Implementations should override this function to write directly into the buffer.
+	 * </p>
+	 * 
+	 * @param input the state of the neurons inside the first layer
+	 * @param output the buffer receiving the state of the neurons inside the last layer
+	 * 
+	 * @return the output buffer, or a new output if the output type cannot be written into
+	 * 
+	 * @throws IOException if the underlying implementation experienced an error
+	 * @throws NullPointerException if {@code input == null} or {@code output == null}
+	 * @throws IndexOutOfBoundsException if the output buffer is smaller than the output layer
+	 */
+	public default O calculate(I input, O output) throws IOException{
+		O result = this.calculate(input);
+		if(output.getClass().isArray() == false)
+			return result;
+		System.arraycopy(result, 0, output, 0, Array.getLength(result));
+		return output;
+	}
+	
+	/**
+	 * Calculates the output states of a whole batch of input states,
+	 * the output of {@code inputs[i]} is stored at {@code outputs[i]}.
+	 * <p>
+	 * The default implementation calls {@link #calculate(I) calculate} for each input,
+	 * implementations should override this function if they are able to read
+	 * their weights once for the whole batch instead of once per input.
+	 * Implementations which return an internal buffer from {@code calculate}
+	 * <u>must</u> override this function.
+	 * </p>
+	 * 
+	 * @param inputs the states of the neurons inside the first layer
+	 * @param outputs receives the output states of the neurons inside the last layer
+	 * 
+	 * @throws IOException if the underlying implementation experienced an error
+	 * @throws NullPointerException if {@code inputs == null} or {@code outputs == null}
+	 * @throws IllegalArgumentException if {@code inputs.length != outputs.length}
+	 */
+	public default void calculateBatch(I inputs[], O outputs[]) throws IOException{
+		if(inputs.length != outputs.length)
+			throw new IllegalArgumentException("Batch sizes do not match: " + inputs.length + " != " + outputs.length);
+		
+		for(int i = 0; i < inputs.length; i++)
+			outputs[i] = this.calculate(inputs[i]);
+	}
+	
 	
 	/**
 	 * Changes the neural-network internally so that the output of {@link #calculate(I) calculate}
@@ -92,4 +146,51 @@ public interface NeuralNetwork<I, O>
 	 * @throws NullPointerException if {@code input == null} or {@code output == null}
 	 */
 	public double train(I input, O output) throws IOException;
+	
+	/**
+	 * Changes the neural-network internally based on a whole batch of inputs and
+	 * expected outputs, every {@code inputs[i]} belongs to {@code outputs[i]}.
+	 * <p>
+	 * The default implementation calls {@link #train(I, O) train} for each pair,
+	 * implementations should override this function if they are able to average
+	 * the adjustments over the batch and process it with matrix-matrix operations.
+	 * </p>
+	 * 
+	 * @param inputs the states of the neurons inside the first layer
+	 * @param outputs the expected states of the neurons inside the last layer
+	 * 
+	 * @return the total error of all pairs before adjustments
+	 * 
+	 * @throws IOException if the underlying implementation experienced an error
+	 * @throws NullPointerException if {@code inputs == null} or {@code outputs == null}
+	 * @throws IllegalArgumentException if {@code inputs.length != outputs.length}
+	 */
+	public default double train(I inputs[], O outputs[]) throws IOException{
+		if(inputs.length != outputs.length)
+			throw new IllegalArgumentException("Batch sizes do not match: " + inputs.length + " != " + outputs.length);
+		
+		double totalError = 0;
+		for(int i = 0; i < inputs.length; i++)
+			totalError += this.train(inputs[i], outputs[i]);
+		return totalError;
+	}
+	
+	
+	/**
+	 * Creates a read-only and thread-safe snapshot of the current state of the neural-network,
+	 * which can be shared by all threads calculating outputs. Later changes of the
+	 * neural-network do not change the snapshot.
+	 * <p>
+	 * The default implementation throws an {@code UnsupportedOperationException}.
+	 * </p>
+	 * 
+	 * @return a new inference model
+	 * 
+	 * @throws IOException if the underlying implementation experienced an error
+	 * @throws UnsupportedOperationException if the implementation does not support snapshots
+	 * @throws IllegalStateException if the neural-network is not initialized
+	 */
+	public default InferenceModel<I, O> freeze() throws IOException{
+		throw new UnsupportedOperationException("Freeze not supported by: " + this.getClass().getName());
+	}
 }
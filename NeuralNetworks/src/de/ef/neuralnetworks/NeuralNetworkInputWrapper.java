@@ -1,7 +1,8 @@
 package de.ef.neuralnetworks;
 
 import java.io.IOException;
-import java.util.function.Function;
+import java.util.Map;
+import java.util.function.BiFunction;
 
 final class NeuralNetworkInputWrapper<I, O, IW>
 	implements NeuralNetwork<IW, O>{
@@ -12,28 +13,39 @@ final class NeuralNetworkInputWrapper<I, O, IW>
 	
 	
 	private final NeuralNetwork<I, O> network;
-	private final Function<IW, I> converter;
+	// converts the input into the given buffer or a new one if the buffer is null or does not fit
+	private final BiFunction<IW, I, I> converter;
 	
+	// reused by calculate with output buffer
+	private transient I inputBuffer;
 	
-	public NeuralNetworkInputWrapper(NeuralNetwork<I, O> network, Function<IW, I> converter){
+	
+	public NeuralNetworkInputWrapper(NeuralNetwork<I, O> network, BiFunction<IW, I, I> converter){
 		this.network = network;
 		
 		this.converter = converter;
 	}
 	
 	
+	@Override
+	public void init(int inputSize, int hiddenSizes[], int outputSize, Map<String, Object> properties) throws IOException{
+		this.network.init(inputSize, hiddenSizes, outputSize, properties);
+	}
+	
+	
 	@Override
 	public O calculate(IW input) throws IOException{
-		return this.network.calculate(this.converter.apply(input));
+		return this.network.calculate(this.converter.apply(input, null));
 	}
 	
 	@Override
-	public double train(IW input, O output) throws IOException{
-		return this.network.train(this.converter.apply(input), output);
+	public O calculate(IW input, O output) throws IOException{
+		this.inputBuffer = this.converter.apply(input, this.inputBuffer);
+		return this.network.calculate(this.inputBuffer, output);
 	}
 	
 	@Override
-	public double train(IW input, O output, double learningRate) throws IOException{
-		return this.network.train(this.converter.apply(input), output, learningRate);
+	public double train(IW input, O output) throws IOException{
+		return this.network.train(this.converter.apply(input, null), output);
 	}
 }
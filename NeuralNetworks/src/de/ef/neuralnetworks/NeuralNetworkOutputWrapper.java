@@ -1,6 +1,8 @@
 package de.ef.neuralnetworks;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 final class NeuralNetworkOutputWrapper<I, O, OW>
@@ -12,11 +14,16 @@ final class NeuralNetworkOutputWrapper<I, O, OW>
 	
 	
 	private final NeuralNetwork<I, O> network;
-	private final Function<O, OW> converter;
+	// converts the output into the given buffer or a new one if the buffer is null or does not fit
+	private final BiFunction<O, OW, OW> converter;
 	private final Function<OW, O> reverseConverter;
 	
+	// reused by calculate with output buffer
+	private transient O outputBuffer;
 	
-	public NeuralNetworkOutputWrapper(NeuralNetwork<I, O> network, Function<O, OW> converter, Function<OW, O> reverseConverter){
+	
+	public NeuralNetworkOutputWrapper(
+			NeuralNetwork<I, O> network, BiFunction<O, OW, OW> converter, Function<OW, O> reverseConverter){
 		this.network = network;
 		
 		this.converter = converter;
@@ -24,18 +31,27 @@ final class NeuralNetworkOutputWrapper<I, O, OW>
 	}
 	
 	
+	@Override
+	public void init(int inputSize, int hiddenSizes[], int outputSize, Map<String, Object> properties) throws IOException{
+		this.network.init(inputSize, hiddenSizes, outputSize, properties);
+	}
+	
+	
 	@Override
 	public OW calculate(I input) throws IOException{
-		return this.converter.apply(this.network.calculate(input));
+		return this.converter.apply(this.network.calculate(input), null);
 	}
 	
 	@Override
-	public double train(I input, OW output) throws IOException{
-		return this.network.train(input, this.reverseConverter.apply(output));
+	public OW calculate(I input, OW output) throws IOException{
+		// the first call creates the buffer of the wrapped network
+		this.outputBuffer = this.outputBuffer == null ?
+			this.network.calculate(input) : this.network.calculate(input, this.outputBuffer);
+		return this.converter.apply(this.outputBuffer, output);
 	}
 	
 	@Override
-	public double train(I input, OW output, double learningRate) throws IOException{
-		return this.network.train(input, this.reverseConverter.apply(output), learningRate);
+	public double train(I input, OW output) throws IOException{
+		return this.network.train(input, this.reverseConverter.apply(output));
 	}
 }
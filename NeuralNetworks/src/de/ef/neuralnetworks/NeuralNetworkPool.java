@@ -0,0 +1,155 @@
+package de.ef.neuralnetworks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The class {@code NeuralNetworkPool} makes a {@link de.ef.neuralnetworks.CopyableNeuralNetwork CopyableNeuralNetwork}
+ * usable by many threads at the same time, by giving every thread its own copy of a prototype.
+ * <p>
+ * The copy of a thread is created by {@link de.ef.neuralnetworks.CopyableNeuralNetwork#copy() copy} when
+ * the thread calculates its first output. Before every calculation the pool compares the
+ * {@link de.ef.neuralnetworks.CopyableNeuralNetwork#version() version} of the prototype with the version
+ * the copy was made of and copies the prototype again with
+ * {@link de.ef.neuralnetworks.CopyableNeuralNetwork#copyFrom copyFrom} if it changed, so a copy never
+ * uses outdated weights for long. Copying reads the prototype without locking, a copy made while the
+ * prototype is trained may contain a partial update, it is copied again after the update.
+ * </p>
+ * <p>
+ * A {@code NeuralNetworkPool} is <b>thread-safe</b>, one pool can be used by all producer threads of an
+ * {@link de.ef.neuralnetworks.AsyncNeuralNetwork AsyncNeuralNetwork} instead of building an array of
+ * neural-networks. It cannot be trained or serialized, train and serialize the prototype instead.
+ * </p>
+ * 
+ * @param I input type
+ * @param O output type
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 3.3
+ */
+public class NeuralNetworkPool<I, O>
+	implements NeuralNetwork<I, O>{
+	
+	/**
+	 * Make always same as @version in JavaDoc in format xxx.yyy.zzz
+	 */
+	private final static long serialVersionUID = 001_000_000L;
+	
+	
+	
+	private final CopyableNeuralNetwork<I, O> prototype;
+	private final ThreadLocal<PooledNetwork<I, O>> networks;
+	private final AtomicInteger size;
+	
+	
+	/**
+	 * Creates a new {@code NeuralNetworkPool} for copies of the given prototype.
+	 * 
+	 * @param prototype an initialized neural-network
+	 */
+	public NeuralNetworkPool(CopyableNeuralNetwork<I, O> prototype){
+		this.prototype = prototype;
+		this.size = new AtomicInteger();
+		this.networks = ThreadLocal.withInitial(() -> {
+			try{
+				long version = prototype.version();
+				PooledNetwork<I, O> network = new PooledNetwork<>(prototype.copy(), version);
+				this.size.incrementAndGet();
+				return network;
+			}catch(IOException e){
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+	
+	
+	/**
+	 * The prototype is already initialized.
+	 * 
+	 * @throws IllegalStateException always
+	 */
+	@Override
+	public void init(int inputSize, int hiddenSizes[], int outputSize, Map<String, Object> properties){
+		throw new IllegalStateException("Neural network already initialized");
+	}
+	
+	
+	@Override
+	public O calculate(I input) throws IOException{
+		return this.network().calculate(input);
+	}
+	
+	@Override
+	public O calculate(I input, O output) throws IOException{
+		return this.network().calculate(input, output);
+	}
+	
+	@Override
+	public void calculateBatch(I inputs[], O outputs[]) throws IOException{
+		this.network().calculateBatch(inputs, outputs);
+	}
+	
+	// returns the copy of the calling thread, copied again if the prototype changed
+	private CopyableNeuralNetwork<I, O> network() throws IOException{
+		PooledNetwork<I, O> pooled;
+		try{
+			pooled = this.networks.get();
+		}catch(UncheckedIOException e){
+			throw e.getCause();
+		}
+		long version = this.prototype.version();
+		if(version != pooled.version){
+			pooled.network.copyFrom(this.prototype);
+			pooled.version = version;
+		}
+		return pooled.network;
+	}
+	
+	
+	/**
+	 * A pool cannot be trained, train the prototype instead.
+	 * 
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public double train(I input, O output){
+		throw new UnsupportedOperationException("Neural network pool cannot be trained");
+	}
+	
+	
+	/**
+	 * Returns the prototype of all copies.
+	 * 
+	 * @return the prototype
+	 */
+	public CopyableNeuralNetwork<I, O> prototype(){
+		return this.prototype;
+	}
+	
+	/**
+	 * Returns the number of copies created so far, which is the number of threads which used the pool.
+	 * 
+	 * @return the number of copies
+	 */
+	public int size(){
+		return this.size.get();
+	}
+	
+	
+	
+	// copy of a thread and the version of the prototype it was copied from
+	private static class PooledNetwork<I, O>{
+		
+		private final CopyableNeuralNetwork<I, O> network;
+		private long version;
+		
+		
+		public PooledNetwork(CopyableNeuralNetwork<I, O> network, long version){
+			this.network = network;
+			this.version = version;
+		}
+	}
+}
@@ -1,6 +1,8 @@
 package de.ef.neuralnetworks;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 public final class NeuralNetworkWrapper<I, O, IW, OW>
@@ -35,12 +37,13 @@ public final class NeuralNetworkWrapper<I, O, IW, OW>
 			new NeuralNetworkWrapper<>(network, wrapInputFloat(inputClass), outputWrap.forward, outputWrap.reverse);
 	}
 	
-	private static <I> Function<I, float[]> wrapInputFloat(Class<I> inputClass){
-		if(inputClass == Float.class) return i -> new float[]{(float)i};
-		if(inputClass.getSuperclass() == Number.class) return i -> new float[]{((Number)i).floatValue()};
+	private static <I> BiFunction<I, float[], float[]> wrapInputFloat(Class<I> inputClass){
+		if(inputClass == Float.class) return (i, b) -> {float f[] = floatBuffer(b, 1); f[0] = (float)i; return f;};
+		if(inputClass.getSuperclass() == Number.class)
+			return (i, b) -> {float f[] = floatBuffer(b, 1); f[0] = ((Number)i).floatValue(); return f;};
 		if(inputClass == double[].class)
-			return d -> {
-				double c[] = (double[])d; float f[] = new float[c.length];
+			return (d, b) -> {
+				double c[] = (double[])d; float f[] = floatBuffer(b, c.length);
 				for(int i = 0; i < c.length; i++) f[i] = (float)c[i]; return f;
 			};
 		throw new NoWrapperFoundException("No input wrapper found.");
@@ -50,12 +53,12 @@ public final class NeuralNetworkWrapper<I, O, IW, OW>
 	private static <O> OutputConverter<float[], O> wrapOutputFloat(Class<O> outputClass){
 		OutputConverter<float[], ?> converter;
 		if(outputClass == Float.class)
-			converter = new OutputConverter<float[], Float>(o -> o[0], o -> new float[]{(Float)o});
+			converter = new OutputConverter<float[], Float>((o, b) -> o[0], o -> new float[]{(Float)o});
 		else if(outputClass == Double.class)
-			converter = new OutputConverter<float[], Double>(o -> (double)o[0], o -> new float[]{o.floatValue()});
+			converter = new OutputConverter<float[], Double>((o, b) -> (double)o[0], o -> new float[]{o.floatValue()});
 		else if(outputClass == double[].class)
 			converter = new OutputConverter<float[], double[]>(
-				o -> {double d[] = new double[o.length]; for(int i = 0; i < o.length; i++) d[i] = (double)o[i]; return d;},
+				(o, b) -> {double d[] = doubleBuffer(b, o.length); for(int i = 0; i < o.length; i++) d[i] = (double)o[i]; return d;},
 				o -> {float f[] = new float[o.length]; for(int i = 0; i < o.length; i++) f[i] = (float)o[i]; return f;}
 			);
 		else throw new NoWrapperFoundException("No output wrapper found.");
@@ -83,9 +86,10 @@ public final class NeuralNetworkWrapper<I, O, IW, OW>
 			new NeuralNetworkWrapper<>(network, wrapInputDouble(inputClass), outputWrap.forward, outputWrap.reverse);
 	}
 	
-	private static <I> Function<I, double[]> wrapInputDouble(Class<I> inputClass){
-		if(inputClass == Float.class) return i -> new double[]{(double)i};
-		if(inputClass.getSuperclass() == Number.class) return i -> new double[]{((Number)i).floatValue()};
+	private static <I> BiFunction<I, double[], double[]> wrapInputDouble(Class<I> inputClass){
+		if(inputClass == Float.class) return (i, b) -> {double d[] = doubleBuffer(b, 1); d[0] = (float)i; return d;};
+		if(inputClass.getSuperclass() == Number.class)
+			return (i, b) -> {double d[] = doubleBuffer(b, 1); d[0] = ((Number)i).floatValue(); return d;};
 		throw new NoWrapperFoundException("No input wrapper found.");
 	}
 	
@@ -93,21 +97,32 @@ public final class NeuralNetworkWrapper<I, O, IW, OW>
 	private static <O> OutputConverter<double[], O> wrapOutputDouble(Class<O> outputClass){
 		OutputConverter<double[], ?> converter;
 		if(outputClass == Float.class)
-			converter = new OutputConverter<double[], Float>(o -> (float)o[0], o -> new double[]{o.doubleValue()});
+			converter = new OutputConverter<double[], Float>((o, b) -> (float)o[0], o -> new double[]{o.doubleValue()});
 		else if(outputClass == Double.class)
-			converter = new OutputConverter<double[], Double>(o -> o[0], o -> new double[]{o});
+			converter = new OutputConverter<double[], Double>((o, b) -> o[0], o -> new double[]{o});
 		else throw new NoWrapperFoundException("No output wrapper found.");
 		
 		return (OutputConverter<double[], O>)converter;
 	}
 	
 	
+	// returns the buffer if it has the given length, otherwise a new array
+	private static float[] floatBuffer(float buffer[], int length){
+		return buffer != null && buffer.length == length ? buffer : new float[length];
+	}
+	
+	private static double[] doubleBuffer(double buffer[], int length){
+		return buffer != null && buffer.length == length ? buffer : new double[length];
+	}
+	
+	
 	private static class OutputConverter<O, OW>{
 		
-		private final Function<O, OW> forward;
+		// boxed outputs ignore the buffer
+		private final BiFunction<O, OW, OW> forward;
 		private final Function<OW, O> reverse;
 		
-		private OutputConverter(Function<O, OW> forward, Function<OW, O> reverse){
+		private OutputConverter(BiFunction<O, OW, OW> forward, Function<OW, O> reverse){
 			this.forward= forward;
 			this.reverse = reverse;
 		}
@@ -131,13 +146,19 @@ public final class NeuralNetworkWrapper<I, O, IW, OW>
 	
 	
 	private final NeuralNetwork<I, O> network;
-	private final Function<IW, I> inputConverter;
-	private final Function<O, OW> outputConverter;
+	// converters write into the given buffer or a new one if the buffer is null or does not fit
+	private final BiFunction<IW, I, I> inputConverter;
+	private final BiFunction<O, OW, OW> outputConverter;
 	private final Function<OW, O> reverseOutputConverter;
 	
+	// reused by calculate with output buffer
+	private transient I inputBuffer;
+	private transient O outputBuffer;
+	
 	
 	private NeuralNetworkWrapper(NeuralNetwork<I, O> network,
-			Function<IW, I> inputConverter, Function<O, OW> outputConverter, Function<OW, O> reverseOutputConverter){
+			BiFunction<IW, I, I> inputConverter, BiFunction<O, OW, OW> outputConverter,
+			Function<OW, O> reverseOutputConverter){
 		this.network = network;
 		
 		this.inputConverter = inputConverter;
@@ -146,18 +167,28 @@ public final class NeuralNetworkWrapper<I, O, IW, OW>
 	}
 	
 	
+	@Override
+	public void init(int inputSize, int hiddenSizes[], int outputSize, Map<String, Object> properties) throws IOException{
+		this.network.init(inputSize, hiddenSizes, outputSize, properties);
+	}
+	
+	
 	@Override
 	public OW calculate(IW input) throws IOException{
-		return this.outputConverter.apply(this.network.calculate(this.inputConverter.apply(input)));
+		return this.outputConverter.apply(this.network.calculate(this.inputConverter.apply(input, null)), null);
 	}
 	
 	@Override
-	public double train(IW input, OW output) throws IOException{
-		return this.network.train(this.inputConverter.apply(input), this.reverseOutputConverter.apply(output));
+	public OW calculate(IW input, OW output) throws IOException{
+		this.inputBuffer = this.inputConverter.apply(input, this.inputBuffer);
+		// the first call creates the buffer of the wrapped network
+		this.outputBuffer = this.outputBuffer == null ?
+			this.network.calculate(this.inputBuffer) : this.network.calculate(this.inputBuffer, this.outputBuffer);
+		return this.outputConverter.apply(this.outputBuffer, output);
 	}
 	
 	@Override
-	public double train(IW input, OW output, double learningRate) throws IOException{
-		return this.network.train(this.inputConverter.apply(input), this.reverseOutputConverter.apply(output), learningRate);
+	public double train(IW input, OW output) throws IOException{
+		return this.network.train(this.inputConverter.apply(input, null), this.reverseOutputConverter.apply(output));
 	}
 }
@@ -0,0 +1,216 @@
+package de.ef.neuralnetworks;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The class {@code OnlineNeuralNetwork} keeps training a
+ * {@link de.ef.neuralnetworks.NeuralNetwork NeuralNetwork} while it is used to calculate outputs.
+ * <p>
+ * Samples passed to {@link #train(Object, Object) train} are queued and trained one after another
+ * by a trainer thread, which is the only thread using the wrapped neural-network. Every
+ * {@code publishInterval} samples the trainer publishes a new snapshot created by
+ * {@link de.ef.neuralnetworks.NeuralNetwork#freeze() freeze}, all calculations use the
+ * latest published snapshot. Publishing only replaces a reference, so calculations
+ * never wait for the trainer and always see a complete snapshot.
+ * </p>
+ * <p>
+ * An {@code OnlineNeuralNetwork} is <b>thread-safe</b> and can be shared by all producer threads of an
+ * {@link de.ef.neuralnetworks.AsyncNeuralNetwork AsyncNeuralNetwork}. It cannot be serialized,
+ * serialize the wrapped neural-network instead.
+ * </p>
+ * 
+ * @param I input type
+ * @param O output type
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 3.3
+ */
+public class OnlineNeuralNetwork<I, O>
+	implements NeuralNetwork<I, O>{
+	
+	/**
+	 * Make always same as @version in JavaDoc in format xxx.yyy.zzz
+	 */
+	private final static long serialVersionUID = 001_000_000L;
+	
+	
+	
+	private final NeuralNetwork<I, O> network;
+	private final int publishInterval;
+	private final BlockingQueue<Sample<I, O>> samples;
+	private final AtomicReference<InferenceModel<I, O>> snapshot;
+	private final Thread trainer;
+	
+	// written by the trainer thread only
+	private volatile long version;
+	private volatile double lastError = Double.NaN;
+	private volatile Throwable failure;
+	
+	
+	/**
+	 * Creates a new {@code OnlineNeuralNetwork} with an unbounded queue, publishes the first snapshot
+	 * and starts the trainer thread.
+	 * 
+	 * @param network an initialized neural-network which supports {@link de.ef.neuralnetworks.NeuralNetwork#freeze() freeze},
+	 * it <u>must not</u> be used by any other thread afterwards
+	 * @param publishInterval number of trained samples between two snapshots
+	 * 
+	 * @throws IOException if the first snapshot could not be created
+	 * @throws UnsupportedOperationException if the neural-network does not support snapshots
+	 */
+	public OnlineNeuralNetwork(NeuralNetwork<I, O> network, int publishInterval) throws IOException{
+		this(network, publishInterval, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Creates a new {@code OnlineNeuralNetwork}, publishes the first snapshot
+	 * and starts the trainer thread.
+	 * 
+	 * @param network an initialized neural-network which supports {@link de.ef.neuralnetworks.NeuralNetwork#freeze() freeze},
+	 * it <u>must not</u> be used by any other thread afterwards
+	 * @param publishInterval number of trained samples between two snapshots
+	 * @param capacity maximum number of queued samples
+	 * 
+	 * @throws IOException if the first snapshot could not be created
+	 * @throws UnsupportedOperationException if the neural-network does not support snapshots
+	 */
+	public OnlineNeuralNetwork(NeuralNetwork<I, O> network, int publishInterval, int capacity) throws IOException{
+		if(publishInterval < 1)
+			throw new IllegalArgumentException("Publish interval not possible: " + publishInterval);
+		if(capacity < 1)
+			throw new IllegalArgumentException("Capacity not possible: " + capacity);
+		
+		this.network = network;
+		this.publishInterval = publishInterval;
+		this.samples = new LinkedBlockingQueue<>(capacity);
+		this.snapshot = new AtomicReference<>(network.freeze());
+		this.trainer = new Thread(this::asyncTrain, "online-neural-network-trainer");
+		this.trainer.setDaemon(true);
+		this.trainer.start();
+	}
+	
+	
+	/**
+	 * The neural-network is already initialized.
+	 * 
+	 * @throws IllegalStateException always
+	 */
+	@Override
+	public void init(int inputSize, int hiddenSizes[], int outputSize, Map<String, Object> properties){
+		throw new IllegalStateException("Neural network already initialized");
+	}
+	
+	
+	@Override
+	public O calculate(I input) throws IOException{
+		return this.snapshot.get().calculate(input);
+	}
+	
+	@Override
+	public O calculate(I input, O output) throws IOException{
+		return this.snapshot.get().calculate(input, output);
+	}
+	
+	@Override
+	public void calculateBatch(I inputs[], O outputs[]) throws IOException{
+		this.snapshot.get().calculateBatch(inputs, outputs);
+	}
+	
+	
+	/**
+	 * Queues the sample for the trainer thread and returns immediately,
+	 * the calculated outputs change with the next published snapshot.
+	 * 
+	 * @return the total error of the last sample trained by the trainer thread,
+	 * {@code NaN} if no sample was trained yet
+	 * 
+	 * @throws IOException if the trainer thread experienced an error or exception, which is the cause,
+	 * it stops training after an error
+	 * @throws IllegalStateException if the trainer thread was stopped or the queue is full
+	 */
+	@Override
+	public double train(I input, O output) throws IOException{
+		if(this.failure != null)
+			throw new IOException("Training failed", this.failure);
+		if(this.trainer.isAlive() == false)
+			throw new IllegalStateException("Trainer stopped");
+		
+		this.samples.add(new Sample<>(input, output));
+		return this.lastError;
+	}
+	
+	
+	/**
+	 * Returns the latest published snapshot.
+	 * 
+	 * @return the snapshot used for calculations
+	 */
+	public InferenceModel<I, O> snapshot(){
+		return this.snapshot.get();
+	}
+	
+	/**
+	 * Returns the number of snapshots published after the first one.
+	 * 
+	 * @return the version of the latest snapshot
+	 */
+	public long version(){
+		return this.version;
+	}
+	
+	/**
+	 * Returns the number of queued samples, which are not trained yet.
+	 * 
+	 * @return the number of queued samples
+	 */
+	public int pending(){
+		return this.samples.size();
+	}
+	
+	/**
+	 * Stops the trainer thread after the current sample, queued samples are not trained.
+	 */
+	public void stop(){
+		this.trainer.interrupt();
+	}
+	
+	
+	private void asyncTrain(){
+		try{
+			int count = 0;
+			while(true){
+				Sample<I, O> sample = this.samples.take();
+				this.lastError = this.network.train(sample.input, sample.output);
+				if(++count == this.publishInterval){
+					count = 0;
+					this.snapshot.set(this.network.freeze());
+					this.version++;
+				}
+			}
+		}catch(InterruptedException e){
+			// stopped
+		}catch(IOException | RuntimeException | Error e){
+			// rethrown by the next train call
+			this.failure = e;
+		}
+	}
+	
+	
+	
+	private static class Sample<I, O>{
+		
+		private final I input;
+		private final O output;
+		
+		
+		public Sample(I input, O output){
+			this.input = input;
+			this.output = output;
+		}
+	}
+}
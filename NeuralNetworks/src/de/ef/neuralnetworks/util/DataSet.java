@@ -0,0 +1,238 @@
+package de.ef.neuralnetworks.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+
+/**
+ * {@code DataSet} stores pairs of inputs and expected outputs packed into one contiguous
+ * block of {@code double} values each, instead of one array per input and output.
+ * <p>
+ * The pairs are stored on-heap in a {@code double[]} or off-heap in a direct
+ * {@link java.nio.DoubleBuffer DoubleBuffer}, which is not scanned by the garbage collector.
+ * The order used for training is an {@code int[]} permutation of the pair indices,
+ * {@link #shuffle(Random) shuffle} only moves indices and never the pairs themselves.
+ * Reading a pair copies it into a buffer of the caller, so training a whole data set
+ * does not allocate any arrays.
+ * </p>
+ * <p>
+ * A {@code DataSet} is <b>not thread-safe</b> while pairs are added or shuffled,
+ * afterwards pairs can be read by any number of threads.
+ * </p>
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 3.3
+ */
+public final class DataSet{
+	
+	private final int inputSize, outputSize, capacity;
+	// exactly one of both holds the values, inputs and outputs of each pair one after another
+	private final double values[];
+	private final DoubleBuffer buffer;
+	private final int order[];
+	private int size;
+	
+	
+	/**
+	 * Creates a new empty {@code DataSet} for up to {@code capacity} pairs.
+	 * 
+	 * @param inputSize the length of every input
+	 * @param outputSize the length of every output
+	 * @param capacity the maximum number of pairs
+	 * @param offHeap {@code true} to store the pairs off-heap
+	 * 
+	 * @throws IllegalArgumentException if a size is less than one, the capacity is negative
+	 * or all pairs do not fit into one array or buffer
+	 */
+	public DataSet(int inputSize, int outputSize, int capacity, boolean offHeap){
+		if(inputSize < 1)
+			throw new IllegalArgumentException("Input size not possible: " + inputSize);
+		if(outputSize < 1)
+			throw new IllegalArgumentException("Output size not possible: " + outputSize);
+		long length = (long)capacity * (inputSize + outputSize);
+		if(capacity < 0 || length * (offHeap == true ? Double.BYTES : 1) > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Capacity not possible: " + capacity);
+		
+		this.inputSize = inputSize;
+		this.outputSize = outputSize;
+		this.capacity = capacity;
+		if(offHeap == true){
+			this.values = null;
+			this.buffer = ByteBuffer.allocateDirect((int)length * Double.BYTES)
+				.order(ByteOrder.nativeOrder()).asDoubleBuffer();
+		}
+		else{
+			this.values = new double[(int)length];
+			this.buffer = null;
+		}
+		this.order = new int[capacity];
+		this.size = 0;
+	}
+	
+	/**
+	 * Creates a new {@code DataSet} containing all pairs of the list.
+	 * 
+	 * @param pairs the inputs and expected outputs, all of the same lengths as the first pair
+	 * @param offHeap {@code true} to store the pairs off-heap
+	 * 
+	 * @return a new full data set
+	 * 
+	 * @throws IllegalArgumentException if the list is empty or a pair has other lengths
+	 */
+	public static DataSet of(List<Entry<double[], double[]>> pairs, boolean offHeap){
+		if(pairs.isEmpty() == true)
+			throw new IllegalArgumentException("Empty data set not possible");
+		
+		Entry<double[], double[]> first = pairs.get(0);
+		DataSet dataSet = new DataSet(first.getKey().length, first.getValue().length, pairs.size(), offHeap);
+		for(Entry<double[], double[]> pair : pairs)
+			dataSet.add(pair.getKey(), pair.getValue());
+		return dataSet;
+	}
+	
+	
+	/**
+	 * Copies the pair into the data set, it is added to the end of the current order.
+	 * 
+	 * @param input the input
+	 * @param output the expected output
+	 * 
+	 * @throws IllegalArgumentException if the input or output has another length
+	 * @throws IllegalStateException if the data set is full
+	 */
+	public void add(double input[], double output[]){
+		if(input.length != this.inputSize)
+			throw new IllegalArgumentException("Input size not possible: " + input.length);
+		if(output.length != this.outputSize)
+			throw new IllegalArgumentException("Output size not possible: " + output.length);
+		if(this.size == this.capacity)
+			throw new IllegalStateException("Data set full");
+		
+		int offset = this.size * (this.inputSize + this.outputSize);
+		if(this.values != null){
+			System.arraycopy(input, 0, this.values, offset, this.inputSize);
+			System.arraycopy(output, 0, this.values, offset + this.inputSize, this.outputSize);
+		}
+		else{
+			for(int i = 0; i < this.inputSize; i++)
+				this.buffer.put(offset + i, input[i]);
+			for(int i = 0; i < this.outputSize; i++)
+				this.buffer.put(offset + this.inputSize + i, output[i]);
+		}
+		this.order[this.size] = this.size;
+		this.size++;
+	}
+	
+	
+	/**
+	 * Copies the input of the pair at the given position of the current order into the buffer.
+	 * 
+	 * @param position the position from {@code 0} to {@code size() - 1}
+	 * @param input receives the input, at least {@link #inputSize() inputSize} long
+	 * 
+	 * @return the buffer
+	 */
+	public double[] input(int position, double input[]){
+		this.read(this.index(position) * (this.inputSize + this.outputSize), input, this.inputSize);
+		return input;
+	}
+	
+	/**
+	 * Copies the expected output of the pair at the given position of the current order into the buffer.
+	 * 
+	 * @param position the position from {@code 0} to {@code size() - 1}
+	 * @param output receives the output, at least {@link #outputSize() outputSize} long
+	 * 
+	 * @return the buffer
+	 */
+	public double[] output(int position, double output[]){
+		this.read(this.index(position) * (this.inputSize + this.outputSize) + this.inputSize, output, this.outputSize);
+		return output;
+	}
+	
+	private int index(int position){
+		if(position < 0 || position >= this.size)
+			throw new IndexOutOfBoundsException("Position not possible: " + position);
+		return this.order[position];
+	}
+	
+	private void read(int offset, double target[], int length){
+		if(this.values != null)
+			System.arraycopy(this.values, offset, target, 0, length);
+		else{
+			for(int i = 0; i < length; i++)
+				target[i] = this.buffer.get(offset + i);
+		}
+	}
+	
+	
+	/**
+	 * Shuffles the order of the pairs by a permutation of their indices.
+	 * 
+	 * @param random the source of randomness
+	 */
+	public void shuffle(Random random){
+		// Fisher-Yates, like Collections.shuffle
+		for(int i = this.size - 1; i > 0; i--){
+			int j = random.nextInt(i + 1), index = this.order[i];
+			this.order[i] = this.order[j];
+			this.order[j] = index;
+		}
+	}
+	
+	/**
+	 * Sorts the indices of the pairs from {@code from} (inclusive) to {@code to} (exclusive)
+	 * of the current order, so the pairs of this range are read in the order they are stored.
+	 * Useful for batches whose order does not matter.
+	 * 
+	 * @param from the first position
+	 * @param to the position after the last position
+	 */
+	public void sort(int from, int to){
+		if(from < 0 || to > this.size || from > to)
+			throw new IndexOutOfBoundsException("Range not possible: " + from + " to " + to);
+		Arrays.sort(this.order, from, to);
+	}
+	
+	
+	/**
+	 * Returns the number of pairs.
+	 * 
+	 * @return the number of pairs
+	 */
+	public int size(){
+		return this.size;
+	}
+	
+	/**
+	 * Returns the length of every input.
+	 * 
+	 * @return the input size
+	 */
+	public int inputSize(){
+		return this.inputSize;
+	}
+	
+	/**
+	 * Returns the length of every expected output.
+	 * 
+	 * @return the output size
+	 */
+	public int outputSize(){
+		return this.outputSize;
+	}
+	
+	/**
+	 * Returns whether the pairs are stored off-heap.
+	 * 
+	 * @return {@code true} if the pairs are stored off-heap
+	 */
+	public boolean isOffHeap(){
+		return this.buffer != null;
+	}
+}
@@ -0,0 +1,131 @@
+package de.ef.neuralnetworks.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@code LatencyHistogram} counts how often which latency occurred, without any locking.
+ * <p>
+ * The buckets grow logarithmically, every power of two is split into eight buckets of the same width,
+ * so a recorded value is stored with an error of at most 12.5%. Values below eight are stored exactly.
+ * Recording increments one bucket and a striped sum, reading a quantile walks over a copy of all buckets
+ * and may miss values recorded at the same time.
+ * </p>
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 3.3
+ */
+public class LatencyHistogram{
+	
+	/**
+	 * Every power of two is split into {@code 2^SUB_BITS} buckets.
+	 */
+	private final static int SUB_BITS = 3, SUB_COUNT = 1 << SUB_BITS;
+	
+	
+	
+	private final AtomicLongArray counts;
+	private final LongAdder sum;
+	
+	
+	public LatencyHistogram(){
+		this.counts = new AtomicLongArray((64 - SUB_BITS) * SUB_COUNT);
+		this.sum = new LongAdder();
+	}
+	
+	
+	/**
+	 * Records the given value, negative values are recorded as zero.
+	 * 
+	 * @param value the value, usually in nanoseconds
+	 */
+	public void record(long value){
+		if(value < 0)
+			value = 0;
+		this.counts.incrementAndGet(index(value));
+		this.sum.add(value);
+	}
+	
+	/**
+	 * Returns the number of recorded values.
+	 * 
+	 * @return the number of values
+	 */
+	public long count(){
+		long count = 0;
+		for(int i = 0; i < this.counts.length(); i++)
+			count += this.counts.get(i);
+		return count;
+	}
+	
+	/**
+	 * Returns the mean of all recorded values.
+	 * 
+	 * @return the mean value, zero if no value was recorded
+	 */
+	public double mean(){
+		long count = this.count();
+		return count == 0 ? 0 : (double)this.sum.sum() / count;
+	}
+	
+	/**
+	 * Returns the value which is greater than or equal to the given share of all recorded values,
+	 * for example {@code 0.99} for the 99th percentile. The value is the upper end of its bucket.
+	 * 
+	 * @param quantile the share of values from {@code 0} to {@code 1}
+	 * 
+	 * @return the quantile, zero if no value was recorded
+	 */
+	public long quantile(double quantile){
+		if(quantile >= 0 == false || quantile > 1)
+			throw new IllegalArgumentException("Quantile not possible: " + quantile);
+		
+		long counts[] = new long[this.counts.length()];
+		long total = 0;
+		for(int i = 0; i < counts.length; i++)
+			total += counts[i] = this.counts.get(i);
+		if(total == 0)
+			return 0;
+		
+		long rank = Math.max(1, (long)Math.ceil(quantile * total)), seen = 0;
+		for(int i = 0; i < counts.length; i++){
+			seen += counts[i];
+			if(seen >= rank)
+				return upperBound(i);
+		}
+		return upperBound(counts.length - 1);
+	}
+	
+	/**
+	 * Removes all recorded values.
+	 */
+	public void reset(){
+		for(int i = 0; i < this.counts.length(); i++)
+			this.counts.set(i, 0);
+		this.sum.reset();
+	}
+	
+	
+	// bucket of the value, small values have a bucket each
+	static int index(long value){
+		if(value < SUB_COUNT)
+			return (int)value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+		return (shift + 1) * SUB_COUNT + (int)((value >>> shift) & (SUB_COUNT - 1));
+	}
+	
+	// smallest value of the bucket
+	static long lowerBound(int index){
+		if(index < SUB_COUNT)
+			return index;
+		return (long)(SUB_COUNT + index % SUB_COUNT) << (index / SUB_COUNT - 1);
+	}
+	
+	// greatest value of the bucket
+	static long upperBound(int index){
+		if(index == (64 - SUB_BITS) * SUB_COUNT - 1)
+			return Long.MAX_VALUE;
+		return lowerBound(index + 1) - 1;
+	}
+}
@@ -1,14 +1,23 @@
 package de.ef.neuralnetworks.util;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
 
+import de.ef.neuralnetworks.DataParallelNeuralNetwork;
 import de.ef.neuralnetworks.NeuralNetwork;
 
 public final class NeuralNetworkTraining{
@@ -18,6 +27,11 @@ public final class NeuralNetworkTraining{
 	
 	public final static int DEFAULT_VALIDATION_PERCENT = 20, MAX_VALIDATION_PERCENT = 50;
 	
+	public final static int DEFAULT_BATCH_SIZE = 1;
+	
+	// TODO make times to shuffle configurable
+	private final static int SHUFFLE_INTERVAL = 200;
+	
 	
 	
 	public static <I, O> void train(
@@ -32,35 +46,465 @@ public final class NeuralNetworkTraining{
 			BiFunction<O, O, Double> errorCalculator, Predicate<Double> completed,
 			int validationPercent) throws IOException{
 		
+		NeuralNetworkTraining.train(network, dataSet, errorCalculator, completed, validationPercent, DEFAULT_BATCH_SIZE);
+	}
+	
+	public static <I, O> void train(
+			NeuralNetwork<I, O> network, List<Entry<I, O>> dataSet,
+			BiFunction<O, O, Double> errorCalculator, Predicate<Double> completed,
+			int validationPercent, int batchSize) throws IOException{
+		
 		if(validationPercent < 0 || validationPercent > MAX_VALIDATION_PERCENT)
 			throw new IllegalArgumentException("Validation percentage not possible: " + validationPercent);
+		if(batchSize < 1)
+			throw new IllegalArgumentException("Batch size not possible: " + batchSize);
 		int validationSize = (int)(dataSet.size() * (validationPercent / 100.0));
 		
-		List<Entry<I, O>> dataSetCopy = new ArrayList<>(dataSet), trainingSet = null, validationSet = null;
+		ShuffledList<I, O> split = new ShuffledList<>(dataSet, validationSize, new Random());
+		NeuralNetworkTraining.train(
+			split::shuffle,
+			() -> NeuralNetworkTraining.train(network, split.trainingSet, batchSize),
+			() -> NeuralNetworkTraining.validate(network, split.validationSet, errorCalculator),
+			completed, validationSize
+		);
+	}
+	
+	/**
+	 * Trains the network like {@link #train(NeuralNetwork, List, BiFunction, Predicate) train},
+	 * but with the pairs of a packed {@link de.ef.neuralnetworks.util.DataSet DataSet}.
+	 * 
+	 * @param network the network to train
+	 * @param dataSet the inputs and expected outputs
+	 * @param errorCalculator calculates the error of an output and the expected output
+	 * @param completed tests the average validation error to stop the training
+	 * @throws IOException if the network throws it
+	 */
+	public static void train(
+			NeuralNetwork<double[], double[]> network, DataSet dataSet,
+			BiFunction<double[], double[], Double> errorCalculator, Predicate<Double> completed) throws IOException{
+		
+		NeuralNetworkTraining.train(
+			network, dataSet, errorCalculator, completed, DEFAULT_VALIDATION_PERCENT, DEFAULT_BATCH_SIZE
+		);
+	}
+	
+	/**
+	 * Trains the network like {@link #train(NeuralNetwork, List, BiFunction, Predicate, int, int) train},
+	 * but with the pairs of a packed {@link de.ef.neuralnetworks.util.DataSet DataSet}. Shuffling only
+	 * moves the indices of the pairs and the pairs of every batch are read in the order they are stored.
+	 * The pairs are copied into buffers which are reused for the whole training, so the network
+	 * <u>must not</u> keep references to the inputs and outputs it is trained with.
+	 * 
+	 * @param network the network to train
+	 * @param dataSet the inputs and expected outputs, its order is shuffled
+	 * @param errorCalculator calculates the error of an output and the expected output
+	 * @param completed tests the average validation error to stop the training
+	 * @param validationPercent the percentage of the data set used for validation
+	 * @param batchSize the number of pairs of one update
+	 * @throws IOException if the network throws it
+	 */
+	public static void train(
+			NeuralNetwork<double[], double[]> network, DataSet dataSet,
+			BiFunction<double[], double[], Double> errorCalculator, Predicate<Double> completed,
+			int validationPercent, int batchSize) throws IOException{
+		
+		if(validationPercent < 0 || validationPercent > MAX_VALIDATION_PERCENT)
+			throw new IllegalArgumentException("Validation percentage not possible: " + validationPercent);
+		if(batchSize < 1)
+			throw new IllegalArgumentException("Batch size not possible: " + batchSize);
+		int size = dataSet.size(), validationSize = (int)(size * (validationPercent / 100.0));
+		
+		// the last batch may be smaller
+		int lastBatchSize = (size - validationSize) % batchSize;
+		double inputs[][] = new double[batchSize][dataSet.inputSize()];
+		double outputs[][] = new double[batchSize][dataSet.outputSize()];
+		double lastInputs[][] = lastBatchSize == 0 ? inputs : Arrays.copyOf(inputs, lastBatchSize);
+		double lastOutputs[][] = lastBatchSize == 0 ? outputs : Arrays.copyOf(outputs, lastBatchSize);
+		double output[] = new double[dataSet.outputSize()];
 		
 		Random random = new Random();
+		NeuralNetworkTraining.train(
+			() -> {
+				dataSet.shuffle(random);
+				// the order inside the validation set and a batch does not matter
+				dataSet.sort(0, validationSize);
+				if(batchSize > 1){
+					for(int offset = validationSize; offset < size; offset += batchSize)
+						dataSet.sort(offset, Math.min(size, offset + batchSize));
+				}
+			},
+			() -> {
+				for(int offset = validationSize; offset < size; offset += batchSize){
+					if(batchSize == 1){
+						network.train(dataSet.input(offset, inputs[0]), dataSet.output(offset, outputs[0]));
+						continue;
+					}
+					int count = Math.min(batchSize, size - offset);
+					double batchInputs[][] = count == batchSize ? inputs : lastInputs;
+					double batchOutputs[][] = count == batchSize ? outputs : lastOutputs;
+					for(int i = 0; i < count; i++){
+						dataSet.input(offset + i, batchInputs[i]);
+						dataSet.output(offset + i, batchOutputs[i]);
+					}
+					network.train(batchInputs, batchOutputs);
+				}
+			},
+			() -> {
+				double totalError = 0;
+				for(int i = 0; i < validationSize; i++){
+					double calculated[] = network.calculate(dataSet.input(i, inputs[0]), output);
+					totalError += errorCalculator.apply(calculated, dataSet.output(i, outputs[0]));
+				}
+				return totalError;
+			},
+			completed, validationSize
+		);
+	}
+	
+	/**
+	 * Trains the network like {@link #train(NeuralNetwork, List, BiFunction, Predicate, int, int) train},
+	 * but with the given number of threads training disjoint slices of the shuffled
+	 * training set at the same time. The threads share the weights of the network and
+	 * update them without any locking (see Hogwild), so the network must allow calls
+	 * to {@code train} and {@code calculate} from several threads at the same time,
+	 * like {@code ConcurrentSlowWave} of the SlowWave project.
+	 * 
+	 * @param network the network to train, must be safe to use by several threads
+	 * @param dataSet the inputs and expected outputs
+	 * @param errorCalculator calculates the error of an output and the expected output
+	 * @param completed tests the average validation error to stop the training
+	 * @param threads the number of threads training the network
+	 * @throws IOException if the network throws it
+	 */
+	public static <I, O> void trainParallel(
+			NeuralNetwork<I, O> network, List<Entry<I, O>> dataSet,
+			BiFunction<O, O, Double> errorCalculator, Predicate<Double> completed,
+			int threads) throws IOException{
+		
+		NeuralNetworkTraining.trainParallel(
+			network, dataSet, errorCalculator, completed, DEFAULT_VALIDATION_PERCENT, DEFAULT_BATCH_SIZE, threads
+		);
+	}
+	
+	/**
+	 * Trains the network like {@link #trainParallel(NeuralNetwork, List, BiFunction, Predicate, int) trainParallel}
+	 * with the given validation percentage and batch size of each thread.
+	 */
+	public static <I, O> void trainParallel(
+			NeuralNetwork<I, O> network, List<Entry<I, O>> dataSet,
+			BiFunction<O, O, Double> errorCalculator, Predicate<Double> completed,
+			int validationPercent, int batchSize, int threads) throws IOException{
+		
+		if(validationPercent < 0 || validationPercent > MAX_VALIDATION_PERCENT)
+			throw new IllegalArgumentException("Validation percentage not possible: " + validationPercent);
+		if(batchSize < 1)
+			throw new IllegalArgumentException("Batch size not possible: " + batchSize);
+		if(threads < 1)
+			throw new IllegalArgumentException("Thread count not possible: " + threads);
+		int validationSize = (int)(dataSet.size() * (validationPercent / 100.0));
+		
+		ShuffledList<I, O> split = new ShuffledList<>(dataSet, validationSize, new Random());
+		ExecutorService executor = newExecutor(threads);
+		try{
+			List<Callable<Double>> trainings = new ArrayList<>(threads), validations = new ArrayList<>(threads);
+			NeuralNetworkTraining.train(
+				() -> {
+					split.shuffle();
+					// every thread gets its own slice of the training and validation set
+					trainings.clear();
+					validations.clear();
+					for(int i = 0; i < threads; i++){
+						List<Entry<I, O>> trainingSlice = slice(split.trainingSet, i, threads);
+						List<Entry<I, O>> validationSlice = slice(split.validationSet, i, threads);
+						trainings.add(() -> {
+							NeuralNetworkTraining.train(network, trainingSlice, batchSize);
+							return 0.0;
+						});
+						validations.add(() -> NeuralNetworkTraining.validate(network, validationSlice, errorCalculator));
+					}
+				},
+				() -> invokeAll(executor, trainings),
+				// the partial errors are summed in a fixed order
+				() -> sum(invokeAll(executor, validations)),
+				completed, validationSize
+			);
+		}
+		finally{
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Trains the network with batches of the given size, which are split into a fixed number of shards.
+	 * Every shard is calculated by its own {@link de.ef.neuralnetworks.DataParallelNeuralNetwork.Replica Replica}
+	 * on one of the threads, afterwards the gradients of all replicas are added together pairwise in a tree
+	 * and applied to the network at once. With the same seed the results are always the same,
+	 * independent of the number of threads used.
+	 * 
+	 * @param network the network to train
+	 * @param dataSet the inputs and expected outputs
+	 * @param errorCalculator calculates the error of an output and the expected output
+	 * @param completed tests the average validation error to stop the training
+	 * @param validationPercent the percentage of the data set used for validation
+	 * @param batchSize the number of pairs of one update
+	 * @param replicas the number of shards of each batch, should be at least the number of threads
+	 * @param threads the number of threads training the network
+	 * @param seed the seed used to shuffle the data set
+	 * @throws IOException if the network throws it
+	 */
+	public static <I, O> void trainSynchronous(
+			DataParallelNeuralNetwork<I, O> network, List<Entry<I, O>> dataSet,
+			BiFunction<O, O, Double> errorCalculator, Predicate<Double> completed,
+			int validationPercent, int batchSize, int replicas, int threads, long seed) throws IOException{
+		
+		if(validationPercent < 0 || validationPercent > MAX_VALIDATION_PERCENT)
+			throw new IllegalArgumentException("Validation percentage not possible: " + validationPercent);
+		if(batchSize < 1)
+			throw new IllegalArgumentException("Batch size not possible: " + batchSize);
+		if(replicas < 1)
+			throw new IllegalArgumentException("Replica count not possible: " + replicas);
+		if(threads < 1)
+			throw new IllegalArgumentException("Thread count not possible: " + threads);
+		if(dataSet.isEmpty() == true)
+			return;
+		int validationSize = (int)(dataSet.size() * (validationPercent / 100.0));
+		
+		List<DataParallelNeuralNetwork.Replica<I, O>> shards = new ArrayList<>(replicas);
+		for(int i = 0; i < replicas; i++)
+			shards.add(network.createReplica());
+		
+		I inputs[] = newArray(dataSet.get(0).getKey(), batchSize);
+		O outputs[] = newArray(dataSet.get(0).getValue(), batchSize);
+		
+		ShuffledList<I, O> split = new ShuffledList<>(dataSet, validationSize, new Random(seed));
+		ExecutorService executor = newExecutor(threads);
+		try{
+			NeuralNetworkTraining.train(
+				split::shuffle,
+				() -> trainSynchronous(network, shards, split.trainingSet, inputs, outputs, executor),
+				() -> validateSynchronous(shards, split.validationSet, errorCalculator, executor),
+				completed, validationSize
+			);
+		}
+		finally{
+			executor.shutdownNow();
+		}
+	}
+	
+	// trains the network once with every entry of the training set, every batch is split into the shards
+	private static <I, O> void trainSynchronous(
+			DataParallelNeuralNetwork<I, O> network, List<DataParallelNeuralNetwork.Replica<I, O>> shards,
+			List<Entry<I, O>> trainingSet, I inputs[], O outputs[], ExecutorService executor) throws IOException{
+		
+		int replicas = shards.size(), batchSize = inputs.length;
+		List<Callable<Double>> tasks = new ArrayList<>(replicas);
+		List<Callable<Void>> reductions = new ArrayList<>(replicas / 2);
+		for(int offset = 0; offset < trainingSet.size(); offset += batchSize){
+			int count = Math.min(batchSize, trainingSet.size() - offset);
+			for(int i = 0; i < count; i++){
+				Entry<I, O> entry = trainingSet.get(offset + i);
+				inputs[i] = entry.getKey();
+				outputs[i] = entry.getValue();
+			}
+			
+			// every replica sums the gradients of its shard
+			tasks.clear();
+			for(int i = 0; i < replicas; i++){
+				DataParallelNeuralNetwork.Replica<I, O> shard = shards.get(i);
+				int from = (int)((long)count * i / replicas), to = (int)((long)count * (i + 1) / replicas);
+				tasks.add(() -> {
+					shard.clearGradients();
+					return shard.accumulateGradients(inputs, outputs, from, to - from);
+				});
+			}
+			invokeAll(executor, tasks);
+			
+			// add up the gradients pairwise, the order only depends on the replica count
+			for(int stride = 1; stride < replicas; stride *= 2){
+				reductions.clear();
+				for(int i = 0; i + stride < replicas; i += 2 * stride){
+					DataParallelNeuralNetwork.Replica<I, O> target = shards.get(i), source = shards.get(i + stride);
+					reductions.add(() -> {
+						target.addGradients(source);
+						return null;
+					});
+				}
+				invokeAll(executor, reductions);
+			}
+			network.applyGradients(shards.get(0), count);
+		}
+	}
+	
+	// returns the total error of the validation set, the partial errors of the shards are summed in a fixed order
+	private static <I, O> double validateSynchronous(
+			List<DataParallelNeuralNetwork.Replica<I, O>> shards, List<Entry<I, O>> validationSet,
+			BiFunction<O, O, Double> errorCalculator, ExecutorService executor) throws IOException{
+		
+		List<Callable<Double>> tasks = new ArrayList<>(shards.size());
+		for(int i = 0; i < shards.size(); i++){
+			DataParallelNeuralNetwork.Replica<I, O> shard = shards.get(i);
+			List<Entry<I, O>> validationSlice = slice(validationSet, i, shards.size());
+			tasks.add(() -> {
+				double error = 0;
+				for(Entry<I, O> entry : validationSlice)
+					error += errorCalculator.apply(shard.calculate(entry.getKey()), entry.getValue());
+				return error;
+			});
+		}
+		return sum(invokeAll(executor, tasks));
+	}
+	
+	// shuffles every SHUFFLE_INTERVAL iterations, then trains and validates
+	// until the average validation error completes the training
+	private static void train(
+			Runnable shuffle, TrainingStep train, ValidationStep validate,
+			Predicate<Double> completed, int validationSize) throws IOException{
+		
 		double totalError;
 		long index = 0;
 		do{
-			// TODO make times to shuffle configurable
-			if(index++ % 200 == 0){
-				Collections.shuffle(dataSetCopy, random);
-				validationSet = dataSetCopy.subList(0, validationSize);
-				trainingSet = dataSetCopy.subList(validationSize, dataSetCopy.size());
-			}
+			if(index++ % SHUFFLE_INTERVAL == 0)
+				shuffle.run();
 			
 			// train
-			for(Entry<I, O> entry : trainingSet)
-				network.train(entry.getKey(), entry.getValue());
+			train.train();
 			
 			// validate
-			totalError = 0;
-			for(Entry<I, O> entry : validationSet){
-				O output = network.calculate(entry.getKey());
-				O expectedOutput = entry.getValue();
-				
-				totalError += errorCalculator.apply(output, expectedOutput);
-			}
+			totalError = validate.validate();
 		}while(completed.test(totalError / validationSize) == false);
 	}
+	
+	// trains the network with every entry of the training set in batches of the given size
+	private static <I, O> void train(
+			NeuralNetwork<I, O> network, List<Entry<I, O>> trainingSet, int batchSize) throws IOException{
+		
+		if(batchSize == 1 || trainingSet.isEmpty() == true){
+			for(Entry<I, O> entry : trainingSet)
+				network.train(entry.getKey(), entry.getValue());
+			return;
+		}
+		
+		// batch arrays with the runtime types of the data set, so that implementations
+		// with primitive array types like double[] can receive them as double[][]
+		I inputs[] = newArray(trainingSet.get(0).getKey(), batchSize);
+		O outputs[] = newArray(trainingSet.get(0).getValue(), batchSize);
+		for(int offset = 0; offset < trainingSet.size(); offset += batchSize){
+			int count = Math.min(batchSize, trainingSet.size() - offset);
+			// last batch may be smaller
+			if(count != inputs.length){
+				inputs = newArray(inputs[0], count);
+				outputs = newArray(outputs[0], count);
+			}
+			for(int i = 0; i < count; i++){
+				Entry<I, O> entry = trainingSet.get(offset + i);
+				inputs[i] = entry.getKey();
+				outputs[i] = entry.getValue();
+			}
+			network.train(inputs, outputs);
+		}
+	}
+	
+	// returns the total error of the network for the validation set
+	private static <I, O> double validate(
+			NeuralNetwork<I, O> network, List<Entry<I, O>> validationSet,
+			BiFunction<O, O, Double> errorCalculator) throws IOException{
+		
+		double totalError = 0;
+		for(Entry<I, O> entry : validationSet){
+			O output = network.calculate(entry.getKey());
+			O expectedOutput = entry.getValue();
+			
+			totalError += errorCalculator.apply(output, expectedOutput);
+		}
+		return totalError;
+	}
+	
+	// returns the index-th of count nearly equal sized parts of the list
+	private static <T> List<T> slice(List<T> list, int index, int count){
+		return list.subList(
+			(int)((long)list.size() * index / count), (int)((long)list.size() * (index + 1) / count)
+		);
+	}
+	
+	// creates a pool of daemon threads, so that an abandoned training does not keep the VM alive
+	private static ExecutorService newExecutor(int threads){
+		return Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "neural-network-training");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	// runs all tasks and returns their results in order, IOExceptions of the tasks are rethrown
+	private static <T> List<T> invokeAll(ExecutorService executor, List<Callable<T>> tasks) throws IOException{
+		List<T> results = new ArrayList<>(tasks.size());
+		try{
+			for(Future<T> future : executor.invokeAll(tasks))
+				results.add(future.get());
+		}
+		catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Training interrupted");
+		}
+		catch(ExecutionException e){
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException)
+				throw (IOException)cause;
+			if(cause instanceof RuntimeException)
+				throw (RuntimeException)cause;
+			if(cause instanceof Error)
+				throw (Error)cause;
+			throw new IllegalStateException(cause);
+		}
+		return results;
+	}
+	
+	private static double sum(List<Double> errors){
+		double sum = 0;
+		for(double error : errors)
+			sum += error;
+		return sum;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static <T> T[] newArray(T element, int length){
+		return (T[])Array.newInstance(element.getClass(), length);
+	}
+	
+	
+	
+	// one training iteration over the training set
+	private static interface TrainingStep{
+		
+		public void train() throws IOException;
+	}
+	
+	// returns the total error of the validation set
+	private static interface ValidationStep{
+		
+		public double validate() throws IOException;
+	}
+	
+	// copy of a data set split into a validation and a training set after shuffling
+	private static class ShuffledList<I, O>{
+		
+		private final List<Entry<I, O>> pairs;
+		private final int validationSize;
+		private final Random random;
+		private List<Entry<I, O>> validationSet, trainingSet;
+		
+		
+		public ShuffledList(List<Entry<I, O>> dataSet, int validationSize, Random random){
+			this.pairs = new ArrayList<>(dataSet);
+			this.validationSize = validationSize;
+			this.random = random;
+		}
+		
+		
+		void shuffle(){
+			Collections.shuffle(this.pairs, this.random);
+			this.validationSet = this.pairs.subList(0, this.validationSize);
+			this.trainingSet = this.pairs.subList(this.validationSize, this.pairs.size());
+		}
+	}
 }
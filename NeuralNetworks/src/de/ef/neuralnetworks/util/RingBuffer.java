@@ -0,0 +1,283 @@
+package de.ef.neuralnetworks.util;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@code RingBuffer} is a bounded lock-free queue for any number of threads putting
+ * and taking elements at the same time.
+ * <p>
+ * All slots are allocated once and reused, every slot has a sequence number which tells
+ * whether the slot can be written or read at the current position, so putting and taking
+ * only needs a compare-and-set of the position and no node is allocated per element.
+ * A thread which has to wait for an element or a free slot does so as selected by the
+ * {@link WaitStrategy WaitStrategy}, from spinning with the lowest latency to parking
+ * with the lowest CPU usage.
+ * </p>
+ * 
+ * @param E element type
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 3.3
+ */
+public class RingBuffer<E>{
+	
+	/**
+	 * Number of tries spinning and number of tries yielding before
+	 * the next wait strategy is used.
+	 */
+	private final static int SPIN_TRIES = 100, YIELD_TRIES = 100;
+	
+	/**
+	 * Time in nanoseconds a parked thread waits before trying again.
+	 */
+	private final static long PARK_NANOS = 1000;
+	
+	
+	
+	private final int mask;
+	private final Object elements[];
+	// position (plus one if readable) the slot can be used at
+	private final AtomicLongArray sequences;
+	// next position to take and to put
+	private final AtomicLong head, tail;
+	private final WaitStrategy waitStrategy;
+	
+	
+	/**
+	 * Creates a new {@code RingBuffer} with at least {@code capacity} slots,
+	 * the capacity is rounded up to the next power of two.
+	 * 
+	 * @param capacity the minimum number of elements
+	 * @param waitStrategy how to wait for elements or free slots
+	 * 
+	 * @throws IllegalArgumentException if the capacity is less than one or more than {@code 2^30}
+	 */
+	public RingBuffer(int capacity, WaitStrategy waitStrategy){
+		if(capacity < 1 || capacity > 1 << 30)
+			throw new IllegalArgumentException("Capacity not possible: " + capacity);
+		
+		int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+		this.mask = size - 1;
+		this.elements = new Object[size];
+		this.sequences = new AtomicLongArray(size);
+		for(int i = 0; i < size; i++)
+			this.sequences.set(i, i);
+		this.head = new AtomicLong();
+		this.tail = new AtomicLong();
+		this.waitStrategy = waitStrategy;
+	}
+	
+	
+	/**
+	 * Puts the element into the buffer if there is a free slot.
+	 * 
+	 * @param element the element to put
+	 * 
+	 * @return {@code true} if the element was put, {@code false} if the buffer is full
+	 * 
+	 * @throws NullPointerException if {@code element == null}
+	 */
+	public boolean offer(E element){
+		if(element == null)
+			throw new NullPointerException();
+		
+		long position = this.tail.get();
+		while(true){
+			int index = (int)position & this.mask;
+			long difference = this.sequences.get(index) - position;
+			if(difference == 0){
+				if(this.tail.compareAndSet(position, position + 1)){
+					this.elements[index] = element;
+					// publish the element to the taking threads
+					this.sequences.lazySet(index, position + 1);
+					return true;
+				}
+			}
+			// slot was not taken yet, one round ago
+			else if(difference < 0)
+				return false;
+			position = this.tail.get();
+		}
+	}
+	
+	/**
+	 * Puts the element into the buffer, waits for a free slot if the buffer is full.
+	 * 
+	 * @param element the element to put
+	 * 
+	 * @throws NullPointerException if {@code element == null}
+	 */
+	public void put(E element){
+		for(int tries = 0; this.offer(element) == false; )
+			tries = this.waitStrategy.idle(tries);
+	}
+	
+	/**
+	 * Takes the oldest element from the buffer.
+	 * 
+	 * @return the oldest element, {@code null} if the buffer is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public E poll(){
+		long position = this.head.get();
+		while(true){
+			int index = (int)position & this.mask;
+			long difference = this.sequences.get(index) - (position + 1);
+			if(difference == 0){
+				if(this.head.compareAndSet(position, position + 1)){
+					E element = (E)this.elements[index];
+					this.elements[index] = null;
+					// release the slot for the next round
+					this.sequences.lazySet(index, position + this.mask + 1);
+					return element;
+				}
+			}
+			// slot was not put yet
+			else if(difference < 0)
+				return null;
+			position = this.head.get();
+		}
+	}
+	
+	/**
+	 * Takes the oldest element from the buffer, waits for an element if the buffer is empty.
+	 * 
+	 * @return the oldest element
+	 * 
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public E take() throws InterruptedException{
+		for(int tries = 0; ; ){
+			E element = this.poll();
+			if(element != null)
+				return element;
+			if(Thread.interrupted() == true)
+				throw new InterruptedException();
+			tries = this.waitStrategy.idle(tries);
+		}
+	}
+	
+	/**
+	 * Takes the oldest element from the buffer, waits up to the given time for an element
+	 * if the buffer is empty.
+	 * 
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout
+	 * 
+	 * @return the oldest element, {@code null} if the time is over
+	 * 
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException{
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for(int tries = 0; ; ){
+			E element = this.poll();
+			if(element != null || deadline - System.nanoTime() <= 0)
+				return element;
+			if(Thread.interrupted() == true)
+				throw new InterruptedException();
+			tries = this.waitStrategy.idle(tries);
+		}
+	}
+	
+	/**
+	 * Takes up to {@code maxElements} elements without waiting and adds them to the collection.
+	 * 
+	 * @param collection receives the taken elements
+	 * @param maxElements the maximum number of elements to take
+	 * 
+	 * @return the number of taken elements
+	 */
+	public int drainTo(Collection<? super E> collection, int maxElements){
+		int count = 0;
+		E element;
+		while(count < maxElements && (element = this.poll()) != null){
+			collection.add(element);
+			count++;
+		}
+		return count;
+	}
+	
+	
+	/**
+	 * Returns the number of elements in the buffer, which may already
+	 * be outdated if other threads use the buffer.
+	 * 
+	 * @return the number of elements
+	 */
+	public int size(){
+		// read head first, so the size is never negative
+		long head = this.head.get();
+		return (int)Math.max(0, Math.min(this.tail.get() - head, this.elements.length));
+	}
+	
+	/**
+	 * Returns the number of slots.
+	 * 
+	 * @return the maximum number of elements
+	 */
+	public int capacity(){
+		return this.elements.length;
+	}
+	
+	
+	
+	/**
+	 * The enum {@code WaitStrategy} contains the ways a thread waits for
+	 * an element or a free slot of a {@link de.ef.neuralnetworks.util.RingBuffer RingBuffer}.
+	 */
+	public static enum WaitStrategy{
+		
+		/**
+		 * Tries again immediately, reacts fastest but keeps a core busy while waiting.
+		 * Only useful if every waiting thread has a core of its own, otherwise it blocks
+		 * the threads it waits for.
+		 */
+		BUSY_SPIN{
+			@Override
+			void pause(int tries){}
+		},
+		
+		/**
+		 * Spins for some tries and then yields to other threads before every try.
+		 */
+		YIELD{
+			@Override
+			void pause(int tries){
+				if(tries >= SPIN_TRIES)
+					Thread.yield();
+			}
+		},
+		
+		/**
+		 * Spins and yields for some tries and then parks the thread for about
+		 * a microsecond (usually longer, depending on the timer of the system)
+		 * before every try, uses the least CPU but adds the most latency.
+		 */
+		PARK{
+			@Override
+			void pause(int tries){
+				if(tries >= SPIN_TRIES + YIELD_TRIES)
+					LockSupport.parkNanos(PARK_NANOS);
+				else if(tries >= SPIN_TRIES)
+					Thread.yield();
+			}
+		};
+		
+		
+		// waits before the next try and returns the failed tries including this one,
+		// the count stops at the last stage, so it never overflows while idle for long
+		int idle(int tries){
+			this.pause(tries);
+			return Math.min(tries + 1, SPIN_TRIES + YIELD_TRIES);
+		}
+		
+		// waits before the next try, tries counts the failed tries before
+		abstract void pause(int tries);
+	}
+}
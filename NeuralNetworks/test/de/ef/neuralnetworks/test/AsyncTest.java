@@ -0,0 +1,251 @@
+package de.ef.neuralnetworks.test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.ef.neuralnetworks.AsyncNeuralNetwork;
+import de.ef.neuralnetworks.AsyncNeuralNetworkMetrics;
+import de.ef.neuralnetworks.AsyncNeuralNetwork.RejectionPolicy;
+import de.ef.neuralnetworks.NeuralNetwork;
+import de.ef.neuralnetworks.util.RingBuffer;
+
+public class AsyncTest{
+	
+	public AsyncTest(){}
+	
+	
+	@Test
+	public void test() throws IOException, InterruptedException, ExecutionException{
+		TestNetwork network = new TestNetwork();
+		AsyncNeuralNetwork<Integer, Integer> async =
+			new AsyncNeuralNetwork.Builder<Integer, Integer>(network)
+				.capacity(1, RejectionPolicy.FAIL_FAST)
+				.build();
+		
+		// a failing input only fails its own output
+		assertCause(IOException.class, async.calculate(-1));
+		Assert.assertEquals(4, (int)async.calculate(2).get());
+		try{
+			async.calculateBlocking(-1);
+			Assert.fail();
+		}
+		catch(CompletionException e){
+			Assert.assertTrue(e.getCause() instanceof IOException);
+		}
+		
+		// block the producer, then fill the queue
+		Future<Integer> blocking = async.calculate(0);
+		network.started.acquire();
+		Future<Integer> queued = async.calculate(3, 50, TimeUnit.MILLISECONDS);
+		assertCause(RejectedExecutionException.class, async.calculate(4));
+		
+		// the queued input is dropped after its deadline
+		Thread.sleep(100);
+		network.release.release();
+		Assert.assertEquals(0, (int)blocking.get());
+		assertCause(TimeoutException.class, queued);
+		
+		AsyncNeuralNetworkMetrics metrics = async.metrics();
+		Assert.assertEquals(6, metrics.getSubmitted());
+		Assert.assertEquals(2, metrics.getFailed());
+		Assert.assertEquals(1, metrics.getRejected());
+		Assert.assertEquals(1, metrics.getExpired());
+		Assert.assertTrue(metrics.queueWait().count() >= 4);
+		Assert.assertTrue(metrics.getComputeP999() >= TimeUnit.MILLISECONDS.toNanos(100));
+		
+		async.shutdown();
+		async = new AsyncNeuralNetwork.Builder<Integer, Integer>(network)
+			.capacity(1, RejectionPolicy.DROP_OLDEST)
+			.build();
+		blocking = async.calculate(0);
+		network.started.acquire();
+		queued = async.calculate(3);
+		Future<Integer> newer = async.calculate(4);
+		network.release.release();
+		assertCause(RejectedExecutionException.class, queued);
+		Assert.assertEquals(8, (int)newer.get());
+		
+		// equal inputs share the output of the waiting input
+		async.shutdown();
+		async = new AsyncNeuralNetwork.Builder<Integer, Integer>(network)
+			.coalesce()
+			.build();
+		blocking = async.calculate(0);
+		network.started.acquire();
+		queued = async.calculate(3);
+		Future<Integer> coalesced = async.calculate(3), cancelled = async.calculate(3);
+		Assert.assertTrue(cancelled.cancel(false));
+		network.release.release();
+		Assert.assertEquals(6, (int)queued.get());
+		Assert.assertEquals(6, (int)coalesced.get());
+		Assert.assertEquals(2, async.metrics().getCoalesced());
+		Assert.assertEquals(6, (int)async.calculateBlocking(3));
+		async.shutdown();
+		
+		testBlocking(network);
+		testRingBuffer(network);
+		testBatch(network);
+	}
+	
+	// callers parked in calculateBlocking are woken up with their own outputs
+	private static void testBlocking(TestNetwork network) throws InterruptedException, ExecutionException{
+		AsyncNeuralNetwork<Integer, Integer> async =
+			new AsyncNeuralNetwork.Builder<Integer, Integer>(network)
+				.producers(2)
+				.build();
+		
+		// block one producer, so the first inputs of all callers wait in the queue
+		Future<Integer> blocking = async.calculate(0);
+		network.started.acquire();
+		List<Throwable> errors = new CopyOnWriteArrayList<>();
+		List<Thread> callers = new ArrayList<>();
+		for(int t = 0; t < 4; t++){
+			int offset = t * 1000;
+			Thread caller = new Thread(() -> {
+				try{
+					for(int i = 1; i <= 200; i++)
+						Assert.assertEquals((offset + i) * 2, (int)async.calculateBlocking(offset + i));
+				}
+				catch(Throwable e){
+					errors.add(e);
+				}
+			});
+			callers.add(caller);
+			caller.start();
+		}
+		network.release.release();
+		Assert.assertEquals(0, (int)blocking.get());
+		for(Thread caller : callers)
+			caller.join(TimeUnit.SECONDS.toMillis(10));
+		for(Thread caller : callers)
+			Assert.assertFalse(caller.isAlive());
+		Assert.assertTrue(errors.toString(), errors.isEmpty());
+		// the producers count an output after waking up its caller
+		async.shutdown();
+		Assert.assertTrue(async.awaitTermination(1, TimeUnit.SECONDS));
+		Assert.assertEquals(801, async.metrics().getCompleted());
+	}
+	
+	// micro-batching calculates the same outputs, full batches at once and partial batches after the timeout
+	private static void testBatch(TestNetwork network) throws IOException, InterruptedException, ExecutionException{
+		AsyncNeuralNetwork<Integer, Integer> async =
+			new AsyncNeuralNetwork.Builder<Integer, Integer>(network)
+				.batch(8, 200, TimeUnit.MILLISECONDS, Integer[]::new, Integer[]::new)
+				.build();
+		
+		// queue all inputs while the producer is blocked
+		Future<Integer> blocking = async.calculate(0);
+		network.started.acquire();
+		List<Future<Integer>> outputs = new ArrayList<>();
+		for(int i = 1; i <= 300; i++)
+			outputs.add(async.calculate(i));
+		network.release.release();
+		Assert.assertEquals(0, (int)blocking.get());
+		for(int i = 1; i <= 300; i++)
+			Assert.assertEquals((int)network.calculate(i), (int)outputs.get(i - 1).get());
+		// 37 full batches and the rest
+		Assert.assertEquals(38, network.batchSizes.size());
+		Assert.assertEquals(8, (int)network.batchSizes.get(0));
+		Assert.assertEquals(4, (int)network.batchSizes.get(37));
+		
+		// a partial batch is calculated when the timeout is over
+		long start = System.nanoTime();
+		outputs.clear();
+		for(int i = 1; i <= 3; i++)
+			outputs.add(async.calculate(i));
+		for(int i = 1; i <= 3; i++)
+			Assert.assertEquals(i * 2, (int)outputs.get(i - 1).get());
+		Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+		Assert.assertEquals(3, (int)network.batchSizes.get(38));
+		async.shutdown();
+	}
+	
+	// a ring buffer passes every input, shutting down stops the spinning producers
+	private static void testRingBuffer(TestNetwork network) throws InterruptedException, ExecutionException{
+		for(RingBuffer.WaitStrategy waitStrategy : RingBuffer.WaitStrategy.values()){
+			AsyncNeuralNetwork<Integer, Integer> async =
+				new AsyncNeuralNetwork.Builder<Integer, Integer>(network)
+					.ringBuffer(8, waitStrategy)
+					.build();
+			List<Future<Integer>> outputs = new ArrayList<>();
+			for(int i = 1; i <= 100; i++)
+				outputs.add(async.calculate(i));
+			for(int i = 1; i <= 100; i++)
+				Assert.assertEquals(i * 2, (int)outputs.get(i - 1).get());
+			
+			// the waiting input is rejected, the calculated input completed
+			Future<Integer> blocking = async.calculate(0);
+			network.started.acquire();
+			Future<Integer> queued = async.calculate(3);
+			async.shutdown();
+			Assert.assertTrue(async.isShutdown());
+			assertCause(RejectedExecutionException.class, queued);
+			assertCause(RejectedExecutionException.class, async.calculate(4));
+			network.release.release();
+			Assert.assertEquals(0, (int)blocking.get());
+			Assert.assertTrue(async.awaitTermination(1, TimeUnit.SECONDS));
+		}
+	}
+	
+	private static void assertCause(Class<? extends Throwable> type, Future<Integer> future)
+			throws InterruptedException{
+		try{
+			future.get();
+			Assert.fail();
+		}
+		catch(ExecutionException e){
+			Assert.assertTrue(e.getCause().toString(), type.isInstance(e.getCause()));
+		}
+	}
+	
+	
+	
+	// doubles the input, fails for negative inputs and waits for release for zero
+	private static class TestNetwork
+		implements NeuralNetwork<Integer, Integer>{
+		
+		private final static long serialVersionUID = 001_000_000L;
+		
+		private final Semaphore started = new Semaphore(0), release = new Semaphore(0);
+		private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+		
+		
+		@Override
+		public void init(int inputSize, int hiddenSizes[], int outputSize, Map<String, Object> properties){}
+		
+		@Override
+		public Integer calculate(Integer input) throws IOException{
+			if(input < 0)
+				throw new IOException("Negative input");
+			if(input == 0){
+				this.started.release();
+				this.release.acquireUninterruptibly();
+			}
+			return input * 2;
+		}
+		
+		@Override
+		public void calculateBatch(Integer inputs[], Integer outputs[]) throws IOException{
+			this.batchSizes.add(inputs.length);
+			NeuralNetwork.super.calculateBatch(inputs, outputs);
+		}
+		
+		@Override
+		public double train(Integer input, Integer output){
+			return 0;
+		}
+	}
+}
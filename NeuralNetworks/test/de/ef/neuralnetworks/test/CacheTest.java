@@ -0,0 +1,121 @@
+package de.ef.neuralnetworks.test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.ef.neuralnetworks.CachingNeuralNetwork;
+import de.ef.neuralnetworks.NeuralNetwork;
+import de.ef.slowwave.SlowWave;
+import de.ef.slowwave.SlowWavePruning;
+
+public class CacheTest{
+	
+	public CacheTest(){}
+	
+	
+	@Test
+	public void test() throws IOException{
+		TestNetwork network = new TestNetwork();
+		CachingNeuralNetwork<double[], double[]> cache = new CachingNeuralNetwork<>(network, 2);
+		
+		// equal inputs are calculated once, changing an output does not change the cache
+		double input[] = {1, 2};
+		double output[] = cache.calculate(input);
+		Assert.assertArrayEquals(new double[]{3}, output, 0);
+		output[0] = -1;
+		input[0] = 2;
+		Assert.assertArrayEquals(new double[]{3}, cache.calculate(new double[]{1, 2}), 0);
+		Assert.assertArrayEquals(new double[]{4}, cache.calculate(input, new double[1]), 0);
+		Assert.assertEquals(2, network.calculations);
+		Assert.assertEquals(1, cache.hits());
+		Assert.assertEquals(2, cache.misses());
+		
+		// the least recently used output is dropped
+		cache.calculate(new double[]{1, 2});
+		cache.calculate(new double[]{5, 5});
+		Assert.assertEquals(1, cache.evictions());
+		Assert.assertEquals(2, cache.size());
+		
+		// a batch only calculates the missing inputs
+		double outputs[][] = new double[3][];
+		cache.calculateBatch(new double[][]{{1, 2}, {5, 5}, {2, 3}}, outputs);
+		Assert.assertArrayEquals(new double[]{5}, outputs[2], 0);
+		Assert.assertEquals(4, network.calculations);
+		
+		// the calculated slots keep their given outputs, the cached slots get copies
+		double buffers[][] = {new double[1], new double[1], new double[1]};
+		outputs = buffers.clone();
+		cache.calculateBatch(new double[][]{{2, 3}, {3, 4}, {5, 5}}, outputs);
+		Assert.assertArrayEquals(new double[]{5}, outputs[0], 0);
+		Assert.assertArrayEquals(new double[]{7}, outputs[1], 0);
+		Assert.assertArrayEquals(new double[]{10}, outputs[2], 0);
+		Assert.assertSame(buffers[1], outputs[1]);
+		Assert.assertNotSame(buffers[0], outputs[0]);
+		Assert.assertEquals(5, network.calculations);
+		
+		// training removes all outputs
+		cache.train(new double[]{1, 2}, new double[]{0});
+		Assert.assertEquals(0, cache.size());
+		Assert.assertArrayEquals(new double[]{13}, cache.calculate(new double[]{1, 2}), 0);
+		Assert.assertEquals(6, network.calculations);
+		Assert.assertEquals(6.0 / 12, cache.hitRate(), 1e-9);
+		
+		// outputs follow changes of a copyable network made without the cache
+		SlowWave prototype = new SlowWave();
+		prototype.init(4, new int[]{8}, 2, Collections.singletonMap("random.seed", 42L));
+		CachingNeuralNetwork<double[], double[]> copyableCache = new CachingNeuralNetwork<>(prototype, 16);
+		input = new double[]{0.1, 0.2, 0.3, 0.4};
+		Assert.assertArrayEquals(prototype.calculate(input), copyableCache.calculate(input), 0);
+		SlowWavePruning.pruneToSparsity(prototype, 0.9);
+		Assert.assertArrayEquals(prototype.calculate(input), copyableCache.calculate(input), 0);
+		prototype.train(input, new double[]{1, 0});
+		Assert.assertArrayEquals(prototype.calculate(input), copyableCache.calculate(input), 0);
+		Assert.assertEquals(0, copyableCache.hits());
+	}
+	
+	
+	
+	// sums the inputs plus the number of trained samples times ten
+	private static class TestNetwork
+		implements NeuralNetwork<double[], double[]>{
+		
+		private final static long serialVersionUID = 001_000_000L;
+		
+		private int calculations = 0, trained = 0;
+		
+		
+		@Override
+		public void init(int inputSize, int hiddenSizes[], int outputSize, Map<String, Object> properties){}
+		
+		@Override
+		public double[] calculate(double input[]){
+			this.calculations++;
+			double sum = this.trained * 10;
+			for(double value : input)
+				sum += value;
+			return new double[]{sum};
+		}
+		
+		// writes into given outputs like an implementation reusing its buffers
+		@Override
+		public void calculateBatch(double inputs[][], double outputs[][]){
+			for(int i = 0; i < inputs.length; i++){
+				double output[] = this.calculate(inputs[i]);
+				if(outputs[i] == null)
+					outputs[i] = output;
+				else
+					System.arraycopy(output, 0, outputs[i], 0, output.length);
+			}
+		}
+		
+		@Override
+		public double train(double input[], double output[]){
+			this.trained++;
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package de.ef.neuralnetworks.test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.ef.neuralnetworks.InferenceModel;
+import de.ef.neuralnetworks.OnlineNeuralNetwork;
+import de.ef.slowwave.SlowWave;
+
+public class OnlineTest{
+	
+	public OnlineTest(){}
+	
+	
+	@Test
+	public void test() throws IOException, InterruptedException{
+		SlowWave network = new SlowWave();
+		network.init(2, new int[]{4}, 1, Collections.singletonMap("random.seed", 42L));
+		OnlineNeuralNetwork<double[], double[]> online = new OnlineNeuralNetwork<>(network, 10);
+		
+		double input[] = {1, 0}, output[] = {1};
+		InferenceModel<double[], double[]> first = online.snapshot();
+		double before = online.calculate(input)[0];
+		
+		// outputs only change with a new snapshot
+		for(int i = 0; i < 9; i++)
+			online.train(input, output);
+		await(() -> online.pending() == 0);
+		Thread.sleep(10);
+		Assert.assertSame(first, online.snapshot());
+		Assert.assertEquals(before, online.calculate(input)[0], 0);
+		
+		for(int i = 0; i < 991; i++)
+			online.train(input, output);
+		await(() -> online.version() >= 100);
+		Assert.assertTrue(online.calculate(input)[0] > before);
+		
+		online.stop();
+		
+		// a runtime exception of the trainer is rethrown as cause
+		SlowWave failingNetwork = new SlowWave();
+		failingNetwork.init(2, new int[]{4}, 1, null);
+		OnlineNeuralNetwork<double[], double[]> failing = new OnlineNeuralNetwork<>(failingNetwork, 10);
+		failing.train(new double[1], output);
+		await(() -> {
+			try{
+				failing.train(input, output);
+				return false;
+			}
+			catch(IOException e){
+				return e.getCause() instanceof IndexOutOfBoundsException;
+			}
+		});
+		
+		// a full queue rejects samples while the trainer is busy
+		BlockingSlowWave blocking = new BlockingSlowWave();
+		blocking.init(2, new int[]{4}, 1, null);
+		OnlineNeuralNetwork<double[], double[]> bounded = new OnlineNeuralNetwork<>(blocking, 10, 1);
+		bounded.train(input, output);
+		await(() -> bounded.pending() == 0);
+		bounded.train(input, output);
+		try{
+			bounded.train(input, output);
+			Assert.fail();
+		}
+		catch(IllegalStateException e){}
+		blocking.release.release(2);
+		await(() -> bounded.pending() == 0);
+		bounded.stop();
+	}
+	
+	// waits up to ten seconds for the condition
+	private static void await(BooleanSupplier condition) throws InterruptedException{
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while(condition.getAsBoolean() == false){
+			if(System.nanoTime() - deadline > 0)
+				Assert.fail("Condition not met in time");
+			Thread.sleep(1);
+		}
+	}
+	
+	
+	
+	// waits for a release before training each sample
+	private static class BlockingSlowWave
+		extends SlowWave{
+		
+		private final static long serialVersionUID = 001_000_000L;
+		
+		private final transient Semaphore release = new Semaphore(0);
+		
+		
+		@Override
+		public double train(double inputs[], double outputs[]){
+			this.release.acquireUninterruptibly();
+			return super.train(inputs, outputs);
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package de.ef.neuralnetworks.test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.ef.neuralnetworks.AsyncNeuralNetwork;
+import de.ef.neuralnetworks.NeuralNetworkPool;
+import de.ef.slowwave.SlowWave;
+import de.ef.slowwave.SlowWavePruning;
+
+public class PoolTest{
+	
+	public PoolTest(){}
+	
+	
+	@Test
+	public void test() throws IOException, InterruptedException, ExecutionException{
+		SlowWave prototype = new SlowWave();
+		prototype.init(4, new int[]{8}, 2, Collections.singletonMap("random.seed", 42L));
+		NeuralNetworkPool<double[], double[]> pool = new NeuralNetworkPool<>(prototype);
+		AsyncNeuralNetwork<double[], double[]> async = new AsyncNeuralNetwork<>(pool, 4);
+		
+		double input[] = {0.1, 0.2, 0.3, 0.4};
+		assertOutputs(prototype.calculate(input), async, input);
+		
+		// copies follow the changes of the prototype
+		prototype.train(input, new double[]{1, 0});
+		assertOutputs(prototype.calculate(input), async, input);
+		SlowWavePruning.pruneToSparsity(prototype, 0.9);
+		assertOutputs(prototype.calculate(input), async, input);
+		Assert.assertTrue(pool.size() <= 4);
+	}
+	
+	private static void assertOutputs(double expected[], AsyncNeuralNetwork<double[], double[]> async, double input[])
+			throws InterruptedException, ExecutionException{
+		List<Future<double[]>> outputs = new ArrayList<>();
+		for(int i = 0; i < 100; i++)
+			outputs.add(async.calculate(input));
+		for(Future<double[]> output : outputs)
+			Assert.assertArrayEquals(expected, output.get(), 0);
+	}
+}
@@ -0,0 +1,133 @@
+package de.ef.neuralnetworks.test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.ef.neuralnetworks.NeuralNetwork;
+import de.ef.neuralnetworks.NeuralNetworkWrapper;
+
+public class WrapperTest{
+	
+	public WrapperTest(){}
+	
+	
+	@Test
+	public void test() throws IOException{
+		// the default copies into an array buffer, even from an internal array
+		DoubleNetwork network = new DoubleNetwork();
+		double buffer[] = new double[2];
+		Assert.assertSame(buffer, network.calculate(new double[]{1, 2}, buffer));
+		Assert.assertArrayEquals(new double[]{3, 6}, buffer, 0);
+		Assert.assertNotSame(network.outputs, buffer);
+		Assert.assertEquals(5, (int)new IntegerNetwork().calculate(2, 0));
+		
+		// input and output are converted, the output is written into the buffer
+		NeuralNetwork<double[], double[]> wrapped =
+			NeuralNetworkWrapper.wrapPrimitiveArray(new FloatNetwork(), float[].class, double[].class, double[].class);
+		buffer = new double[2];
+		for(int i = 1; i <= 3; i++){
+			Assert.assertSame(buffer, wrapped.calculate(new double[]{i, 0.5}, buffer));
+			Assert.assertArrayEquals(new double[]{i + 0.5, (i + 0.5) * 2}, buffer, 0);
+		}
+		Assert.assertArrayEquals(new double[]{1.5, 3}, wrapped.calculate(new double[]{1, 0.5}), 0);
+		// a buffer of another length is replaced
+		Assert.assertEquals(2, wrapped.calculate(new double[]{1, 0.5}, new double[1]).length);
+		
+		// boxed outputs are created, the wrapped network writes into its own buffer after the first call
+		DoubleNetwork doubleNetwork = new DoubleNetwork();
+		NeuralNetwork<Float, Double> boxed =
+			NeuralNetworkWrapper.wrapPrimitiveArray(doubleNetwork, double[].class, Float.class, Double.class);
+		for(int i = 1; i <= 3; i++)
+			Assert.assertEquals(i, boxed.calculate((float)i, 0.0), 0);
+		Assert.assertEquals(4, boxed.calculate(4f), 0);
+		
+		// only the output or only the input is converted
+		NeuralNetwork<float[], Double> output =
+			NeuralNetworkWrapper.wrapPrimitiveArray(new FloatNetwork(), float[].class, float[].class, Double.class);
+		Assert.assertEquals(3, output.calculate(new float[]{1, 2}, 0.0), 0);
+		Assert.assertEquals(4, output.calculate(new float[]{2, 2}, 0.0), 0);
+		NeuralNetwork<Float, float[]> input =
+			NeuralNetworkWrapper.wrapPrimitiveArray(new FloatNetwork(), float[].class, Float.class, float[].class);
+		float floatBuffer[] = new float[2];
+		Assert.assertSame(floatBuffer, input.calculate(1.5f, floatBuffer));
+		Assert.assertArrayEquals(new float[]{1.5f, 3}, floatBuffer, 0);
+	}
+	
+	
+	
+	// sums the inputs, the second output is twice the sum, returns its internal array
+	private static class DoubleNetwork
+		implements NeuralNetwork<double[], double[]>{
+		
+		private final static long serialVersionUID = 001_000_000L;
+		
+		private final double outputs[] = new double[2];
+		
+		
+		@Override
+		public void init(int inputSize, int hiddenSizes[], int outputSize, Map<String, Object> properties){}
+		
+		@Override
+		public double[] calculate(double input[]){
+			double sum = 0;
+			for(double value : input)
+				sum += value;
+			this.outputs[0] = sum;
+			this.outputs[1] = sum * 2;
+			return this.outputs;
+		}
+		
+		@Override
+		public double train(double input[], double output[]){
+			return 0;
+		}
+	}
+	
+	// sums the inputs, the second output is twice the sum
+	private static class FloatNetwork
+		implements NeuralNetwork<float[], float[]>{
+		
+		private final static long serialVersionUID = 001_000_000L;
+		
+		
+		@Override
+		public void init(int inputSize, int hiddenSizes[], int outputSize, Map<String, Object> properties){}
+		
+		@Override
+		public float[] calculate(float input[]){
+			float sum = 0;
+			for(float value : input)
+				sum += value;
+			return new float[]{sum, sum * 2};
+		}
+		
+		@Override
+		public double train(float input[], float output[]){
+			return 0;
+		}
+	}
+	
+	// adds three
+	private static class IntegerNetwork
+		implements NeuralNetwork<Integer, Integer>{
+		
+		private final static long serialVersionUID = 001_000_000L;
+		
+		
+		@Override
+		public void init(int inputSize, int hiddenSizes[], int outputSize, Map<String, Object> properties){}
+		
+		@Override
+		public Integer calculate(Integer input){
+			return input + 3;
+		}
+		
+		@Override
+		public double train(Integer input, Integer output){
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package de.ef.neuralnetworks.util.test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.ef.neuralnetworks.NeuralNetwork;
+import de.ef.neuralnetworks.util.DataSet;
+import de.ef.neuralnetworks.util.NeuralNetworkTraining;
+
+public class DataSetTest{
+	
+	public DataSetTest(){}
+	
+	
+	@Test
+	public void test() throws IOException{
+		for(boolean offHeap : new boolean[]{false, true}){
+			DataSet dataSet = new DataSet(2, 1, 10, offHeap);
+			Assert.assertEquals(offHeap, dataSet.isOffHeap());
+			for(int i = 0; i < 10; i++)
+				dataSet.add(new double[]{i, -i}, new double[]{i * 2});
+			Assert.assertEquals(10, dataSet.size());
+			Assert.assertArrayEquals(new double[]{3, -3}, dataSet.input(3, new double[2]), 0);
+			Assert.assertArrayEquals(new double[]{6}, dataSet.output(3, new double[1]), 0);
+			
+			// shuffling keeps every pair together and exactly once
+			dataSet.shuffle(new Random(1));
+			boolean seen[] = new boolean[10];
+			double input[] = new double[2], output[] = new double[1];
+			for(int i = 0; i < 10; i++){
+				dataSet.input(i, input);
+				dataSet.output(i, output);
+				Assert.assertEquals(-input[0], input[1], 0);
+				Assert.assertEquals(input[0] * 2, output[0], 0);
+				seen[(int)input[0]] = true;
+			}
+			for(boolean s : seen)
+				Assert.assertTrue(s);
+			dataSet.sort(0, 10);
+			Assert.assertEquals(9, dataSet.input(9, input)[0], 0);
+		}
+		
+		// every training pair is trained once per iteration, the validation pairs never
+		DataSet dataSet = new DataSet(1, 1, 10, false);
+		for(int i = 0; i < 10; i++)
+			dataSet.add(new double[]{i}, new double[]{i});
+		CountingNetwork network = new CountingNetwork();
+		int iterations[] = {0};
+		NeuralNetworkTraining.train(network, dataSet, (o, e) -> 0.0, e -> ++iterations[0] == 3, 20, 3);
+		Assert.assertEquals(24, network.trained);
+		Assert.assertEquals(9, network.batches);
+		Assert.assertEquals(6, network.calculated);
+	}
+	
+	
+	
+	private static class CountingNetwork
+		implements NeuralNetwork<double[], double[]>{
+		
+		private final static long serialVersionUID = 001_000_000L;
+		
+		private int trained = 0, batches = 0, calculated = 0;
+		
+		
+		@Override
+		public void init(int inputSize, int hiddenSizes[], int outputSize, Map<String, Object> properties){}
+		
+		@Override
+		public double[] calculate(double input[]){
+			this.calculated++;
+			return input.clone();
+		}
+		
+		@Override
+		public double train(double input[], double output[]){
+			this.trained++;
+			return 0;
+		}
+		
+		@Override
+		public double train(double inputs[][], double outputs[][]) throws IOException{
+			this.batches++;
+			return NeuralNetwork.super.train(inputs, outputs);
+		}
+	}
+}
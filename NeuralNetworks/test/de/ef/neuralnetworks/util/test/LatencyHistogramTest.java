@@ -0,0 +1,55 @@
+package de.ef.neuralnetworks.util.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.ef.neuralnetworks.util.LatencyHistogram;
+
+public class LatencyHistogramTest{
+	
+	public LatencyHistogramTest(){}
+	
+	
+	@Test
+	public void test() throws InterruptedException{
+		LatencyHistogram histogram = new LatencyHistogram();
+		Assert.assertEquals(0, histogram.quantile(0.99));
+		
+		// small values are exact, greater values at most 12.5% too big
+		for(int i = 1; i <= 1000; i++)
+			histogram.record(i);
+		Assert.assertEquals(1000, histogram.count());
+		Assert.assertEquals(500.5, histogram.mean(), 1e-9);
+		Assert.assertEquals(1, histogram.quantile(0));
+		assertNear(500, histogram.quantile(0.5));
+		assertNear(990, histogram.quantile(0.99));
+		assertNear(1000, histogram.quantile(1));
+		histogram.record(Long.MAX_VALUE);
+		Assert.assertEquals(Long.MAX_VALUE, histogram.quantile(1));
+		
+		histogram.reset();
+		Assert.assertEquals(0, histogram.count());
+		
+		// no value is lost while recording from several threads
+		int threads = 4, count = 100000;
+		List<Thread> workers = new ArrayList<>();
+		for(int t = 0; t < threads; t++){
+			workers.add(new Thread(() -> {
+				for(int i = 0; i < count; i++)
+					histogram.record(i);
+			}));
+		}
+		for(Thread worker : workers)
+			worker.start();
+		for(Thread worker : workers)
+			worker.join();
+		Assert.assertEquals(threads * (long)count, histogram.count());
+	}
+	
+	private static void assertNear(long expected, long actual){
+		Assert.assertTrue(actual + " for " + expected, actual >= expected && actual <= expected * 1.125);
+	}
+}
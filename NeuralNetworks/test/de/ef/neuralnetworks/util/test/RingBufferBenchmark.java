@@ -0,0 +1,74 @@
+package de.ef.neuralnetworks.util.test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import de.ef.neuralnetworks.util.RingBuffer;
+
+/**
+ * Compares how fast elements are passed between threads by a
+ * {@link java.util.concurrent.LinkedBlockingQueue LinkedBlockingQueue}
+ * and by a {@link de.ef.neuralnetworks.util.RingBuffer RingBuffer} with each wait strategy.
+ */
+public class RingBufferBenchmark{
+	
+	private final static int THREADS = 2, COUNT = 2_000_000, CAPACITY = 1024, ROUNDS = 5;
+	private final static Integer ELEMENT = 42;
+	
+	
+	public static void main(String args[]) throws InterruptedException{
+		for(int round = 0; round < ROUNDS; round++){
+			BlockingQueue<Integer> queue = new LinkedBlockingQueue<>();
+			print("LinkedBlockingQueue", run(() -> {
+				for(int i = 0; i < COUNT; i++)
+					queue.add(ELEMENT);
+			}, () -> {
+				for(int i = 0; i < COUNT; i++)
+					queue.take();
+			}));
+			
+			for(RingBuffer.WaitStrategy strategy : RingBuffer.WaitStrategy.values()){
+				RingBuffer<Integer> buffer = new RingBuffer<>(CAPACITY, strategy);
+				print("RingBuffer " + strategy, run(() -> {
+					for(int i = 0; i < COUNT; i++)
+						buffer.put(ELEMENT);
+				}, () -> {
+					for(int i = 0; i < COUNT; i++)
+						buffer.take();
+				}));
+			}
+			System.out.println();
+		}
+	}
+	
+	// runs THREADS putting and THREADS taking threads, returns the time in nanoseconds
+	private static long run(Runnable put, Task take) throws InterruptedException{
+		Thread threads[] = new Thread[THREADS * 2];
+		for(int i = 0; i < THREADS; i++){
+			threads[i * 2] = new Thread(put);
+			threads[i * 2 + 1] = new Thread(() -> {
+				try{
+					take.run();
+				}
+				catch(InterruptedException e){}
+			});
+		}
+		long start = System.nanoTime();
+		for(Thread thread : threads)
+			thread.start();
+		for(Thread thread : threads)
+			thread.join();
+		return System.nanoTime() - start;
+	}
+	
+	private static void print(String name, long nanos){
+		System.out.printf("%-24s %8.1f ns/element %8.2f M elements/s%n",
+			name, (double)nanos / (THREADS * COUNT), THREADS * COUNT * 1e3 / nanos);
+	}
+	
+	
+	
+	private interface Task{
+		public void run() throws InterruptedException;
+	}
+}
@@ -0,0 +1,57 @@
+package de.ef.neuralnetworks.util.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.ef.neuralnetworks.util.RingBuffer;
+
+public class RingBufferTest{
+	
+	public RingBufferTest(){}
+	
+	
+	@Test
+	public void test() throws InterruptedException{
+		RingBuffer<Integer> buffer = new RingBuffer<>(3, RingBuffer.WaitStrategy.YIELD);
+		Assert.assertEquals(4, buffer.capacity());
+		for(int i = 0; i < 4; i++)
+			Assert.assertTrue(buffer.offer(i));
+		Assert.assertFalse(buffer.offer(4));
+		Assert.assertEquals(4, buffer.size());
+		
+		List<Integer> drained = new ArrayList<>();
+		Assert.assertEquals(2, buffer.drainTo(drained, 2));
+		Assert.assertEquals(0, (int)drained.get(0));
+		Assert.assertEquals(2, (int)buffer.poll());
+		Assert.assertEquals(3, (int)buffer.take());
+		Assert.assertNull(buffer.poll());
+		
+		// every element put by several threads is taken exactly once
+		int threads = 4, count = 100000;
+		AtomicLong sum = new AtomicLong();
+		List<Thread> workers = new ArrayList<>();
+		for(int t = 0; t < threads; t++){
+			workers.add(new Thread(() -> {
+				for(int i = 1; i <= count; i++)
+					buffer.put(i);
+			}));
+			workers.add(new Thread(() -> {
+				try{
+					for(int i = 0; i < count; i++)
+						sum.addAndGet(buffer.take());
+				}
+				catch(InterruptedException e){}
+			}));
+		}
+		for(Thread worker : workers)
+			worker.start();
+		for(Thread worker : workers)
+			worker.join();
+		Assert.assertEquals(threads * (long)count * (count + 1) / 2, sum.get());
+		Assert.assertEquals(0, buffer.size());
+	}
+}
@@ -0,0 +1,89 @@
+package de.ef.slowwave;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@code SlowWaveVectorKernel} is the {@link de.ef.slowwave.SlowWaveKernel SlowWaveKernel}
+ * using the SIMD instructions of the CPU through the incubating Vector API.
+ * <p>
+ * This class needs Java 16 or newer and is therefore kept apart from the Java 8 sources.
+ * It is compiled into the same output folder with
+ * {@code javac --release 17 --add-modules jdk.incubator.vector -cp bin -d bin src-vector/de/ef/slowwave/*.java}
+ * and only used if the VM is started with {@code --add-modules jdk.incubator.vector},
+ * otherwise {@code SlowWave} falls back to the scalar kernel.
+ * </p>
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 2.0
+ */
+final class SlowWaveVectorKernel
+	extends SlowWaveKernel{
+	
+	private final static VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+	
+	private final static DoubleVector ONE = DoubleVector.broadcast(SPECIES, 1);
+	
+	
+	
+	SlowWaveVectorKernel(){}
+	
+	
+	@Override
+	double dot(double a[], int aOffset, double b[], int bOffset, int length){
+		int bound = SPECIES.loopBound(length), k = 0;
+		DoubleVector sum = DoubleVector.zero(SPECIES);
+		for(; k < bound; k += SPECIES.length()){
+			DoubleVector va = DoubleVector.fromArray(SPECIES, a, aOffset + k);
+			DoubleVector vb = DoubleVector.fromArray(SPECIES, b, bOffset + k);
+			sum = sum.add(va.mul(vb));
+		}
+		double result = sum.reduceLanes(VectorOperators.ADD);
+		for(; k < length; k++){
+			result += a[aOffset + k] * b[bOffset + k];
+		}
+		return result;
+	}
+	
+	@Override
+	void axpy(double alpha, double x[], int xOffset, double y[], int yOffset, int length){
+		int bound = SPECIES.loopBound(length), k = 0;
+		for(; k < bound; k += SPECIES.length()){
+			DoubleVector vx = DoubleVector.fromArray(SPECIES, x, xOffset + k);
+			DoubleVector vy = DoubleVector.fromArray(SPECIES, y, yOffset + k);
+			vy.add(vx.mul(alpha)).intoArray(y, yOffset + k);
+		}
+		for(; k < length; k++){
+			y[yOffset + k] += alpha * x[xOffset + k];
+		}
+	}
+	
+	@Override
+	void propagate(
+			double error, double step, double weights[], int offset, double inputs[], double previous[], int length){
+		int bound = SPECIES.loopBound(length), k = 0;
+		for(; k < bound; k += SPECIES.length()){
+			DoubleVector weight = DoubleVector.fromArray(SPECIES, weights, offset + k);
+			DoubleVector.fromArray(SPECIES, previous, k).add(weight.mul(error)).intoArray(previous, k);
+			weight.add(DoubleVector.fromArray(SPECIES, inputs, k).mul(step)).intoArray(weights, offset + k);
+		}
+		for(; k < length; k++){
+			previous[k] += error * weights[offset + k];
+			weights[offset + k] += step * inputs[k];
+		}
+	}
+	
+	@Override
+	void sigmoid(double values[], int offset, int length){
+		int bound = SPECIES.loopBound(length), k = 0;
+		for(; k < bound; k += SPECIES.length()){
+			DoubleVector value = DoubleVector.fromArray(SPECIES, values, offset + k);
+			ONE.div(value.neg().lanewise(VectorOperators.EXP).add(1)).intoArray(values, offset + k);
+		}
+		for(; k < length; k++){
+			values[offset + k] = 1 / (1 + Math.exp(-values[offset + k]));
+		}
+	}
+}
@@ -0,0 +1,222 @@
+package de.ef.slowwave;
+
+import java.util.Locale;
+
+/**
+ * The enum {@code Activation} contains the activation functions of
+ * {@link de.ef.slowwave.SlowWave SlowWave}, which calculate the output of
+ * a neuron from the weighted sum of its inputs.
+ * <p>
+ * The function is selected with the property {@code activation} for all layers
+ * and {@code activation.<layer>} for a single layer, either as an {@code Activation}
+ * or as its name. All sigmoid variants share the derivative {@code output * (1 - output)}
+ * used by the training and only differ in the speed and accuracy of the calculation,
+ * the error bounds are the maximum absolute difference to the exact sigmoid function.
+ * </p>
+ * <p>
+ * The derivatives are calculated from the output instead of the weighted sum,
+ * because only the outputs are kept for the training.
+ * The ordinal of each activation is serialized, new activations must be appended.
+ * </p>
+ * 
+ * @author Erik Fritzsche
+ * @version 1.1
+ * @since 2.0
+ */
+public enum Activation{
+	
+	/**
+	 * The exact sigmoid function {@code 1 / (1 + e^-x)} based on {@link Math#exp(double) Math.exp},
+	 * vectorized if the Vector API is available.
+	 */
+	SIGMOID{
+		@Override
+		public double apply(double x){
+			return 1 / (1 + Math.exp(-x));
+		}
+		
+		@Override
+		void apply(double values[], int offset, int length){
+			SlowWaveKernel.INSTANCE.sigmoid(values, offset, length);
+		}
+	},
+	
+	/**
+	 * The sigmoid function linearly interpolated between 64 precalculated values per unit
+	 * in the range from {@code -16} to {@code 16}, outside of that the nearest end is used.
+	 * The table has 16 KiB and the error is below {@code 3e-6}.
+	 */
+	SIGMOID_TABLE{
+		@Override
+		public double apply(double x){
+			// position inside of the table, NaN stays NaN
+			double position = (Math.min(Math.max(x, -TABLE_RANGE), TABLE_RANGE) + TABLE_RANGE) * TABLE_STEPS;
+			int index = Math.min((int)position, TABLE.length - 2);
+			double lower = TABLE[index];
+			return lower + (TABLE[index + 1] - lower) * (position - index);
+		}
+	},
+	
+	/**
+	 * The sigmoid function calculated as {@code (1 + tanh(x / 2)) / 2}, where the hyperbolic
+	 * tangent is approximated by a rational function (Pade approximant of degree 7 over 6)
+	 * and limited to the range where the approximant is closer than the ends.
+	 * The error is below {@code 4e-5}.
+	 */
+	SIGMOID_RATIONAL{
+		@Override
+		public double apply(double x){
+			double y = Math.min(Math.max(x * 0.5, -RATIONAL_RANGE), RATIONAL_RANGE), y2 = y * y;
+			double tanh =
+				y * (135135 + y2 * (17325 + y2 * (378 + y2)))
+				/ (135135 + y2 * (62370 + y2 * (3150 + y2 * 28)));
+			return 0.5 + 0.5 * tanh;
+		}
+	},
+	
+	/**
+	 * The rectified linear function {@code max(0, x)}, its derivative is one for
+	 * positive outputs and zero otherwise. The initial weights are scaled by the
+	 * input count, so that the outputs of wide layers do not explode.
+	 */
+	RELU{
+		@Override
+		public double apply(double x){
+			return x > 0 ? x : 0;
+		}
+		
+		@Override
+		public double derivative(double output){
+			return output > 0 ? 1 : 0;
+		}
+		
+		@Override
+		double weightRange(int inputCount){
+			return Math.sqrt(6.0 / inputCount);
+		}
+	},
+	
+	/**
+	 * The rectified linear function with a slope of {@code 0.01} for negative values,
+	 * so that neurons with negative sums still learn.
+	 */
+	LEAKY_RELU{
+		@Override
+		public double apply(double x){
+			return x > 0 ? x : LEAKY_SLOPE * x;
+		}
+		
+		@Override
+		public double derivative(double output){
+			return output > 0 ? 1 : LEAKY_SLOPE;
+		}
+		
+		@Override
+		double weightRange(int inputCount){
+			return Math.sqrt(6.0 / inputCount);
+		}
+	},
+	
+	/**
+	 * The hyperbolic tangent, which is a sigmoid function with outputs between
+	 * {@code -1} and {@code 1} and the derivative {@code 1 - output^2}.
+	 */
+	TANH{
+		@Override
+		public double apply(double x){
+			return Math.tanh(x);
+		}
+		
+		@Override
+		public double derivative(double output){
+			return 1 - output * output;
+		}
+		
+		@Override
+		double weightRange(int inputCount){
+			return Math.sqrt(3.0 / inputCount);
+		}
+	};
+	
+	
+	
+	private final static int TABLE_STEPS = 64;
+	private final static double TABLE_RANGE = 16;
+	private final static double TABLE[] = new double[(int)(2 * TABLE_RANGE * TABLE_STEPS) + 1];
+	static{
+		for(int i = 0; i < TABLE.length; i++){
+			TABLE[i] = SIGMOID.apply(i / (double)TABLE_STEPS - TABLE_RANGE);
+		}
+	}
+	
+	private final static double RATIONAL_RANGE = 4.8;
+	
+	private final static double LEAKY_SLOPE = 0.01;
+	
+	
+	
+	/**
+	 * Calculates the output of a neuron.
+	 * 
+	 * @param x the weighted sum of the inputs including the bias
+	 * 
+	 * @return the output of the neuron
+	 */
+	public abstract double apply(double x);
+	
+	/**
+	 * Calculates the derivative of the function based on the output of a neuron,
+	 * the default is the derivative of the sigmoid function.
+	 * 
+	 * @param output the output of the neuron
+	 * 
+	 * @return the derivative at the weighted sum which caused the output
+	 */
+	public double derivative(double output){
+		return output * (1 - output);
+	}
+	
+	// returns the initial weights range [-range; range[ for neurons with the given input count
+	double weightRange(int inputCount){
+		return 1;
+	}
+	
+	// replaces every value from offset to offset + length with its output
+	void apply(double values[], int offset, int length){
+		for(int k = offset; k < offset + length; k++){
+			values[k] = this.apply(values[k]);
+		}
+	}
+	
+	
+	// multiplies every error from offset to offset + length with the derivative of its output
+	void derivative(double errors[], double outputs[], int offset, int length){
+		for(int k = offset; k < offset + length; k++){
+			errors[k] *= this.derivative(outputs[k]);
+		}
+	}
+	
+	
+	/**
+	 * Returns the activation of the given property value.
+	 * 
+	 * @param value an {@code Activation}, the name of one or {@code null}
+	 * @param defaultValue returned if the value is {@code null}
+	 * 
+	 * @return the activation
+	 * 
+	 * @throws IllegalArgumentException if the value is no activation
+	 */
+	static Activation of(Object value, Activation defaultValue){
+		if(value == null)
+			return defaultValue;
+		if(value instanceof Activation)
+			return (Activation)value;
+		try{
+			return Activation.valueOf(value.toString().toUpperCase(Locale.ENGLISH));
+		}
+		catch(IllegalArgumentException e){
+			throw new IllegalArgumentException("Activation not possible: " + value);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package de.ef.slowwave;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * {@code ConcurrentSlowWave} is a {@link de.ef.slowwave.SlowWave SlowWave}
+ * which can be calculated and trained by several threads at the same time.
+ * <p>
+ * Every thread gets its own outputs and errors, while the weights are shared
+ * by all threads and updated without any locking. Concurrent updates may
+ * overwrite each other, which is fine for training as long as the updates
+ * are sparse compared to the weight count (see Hogwild). Outputs calculated
+ * during training may see partially updated weights.
+ * </p>
+ * <p>
+ * Only plain gradient descent ({@link de.ef.slowwave.Optimizer#SGD SGD}) is possible,
+ * the state of the other optimizers is updated by every step and would be corrupted
+ * by concurrent updates.
+ * </p>
+ * <p>
+ * The outputs and errors of a thread are kept until the network is
+ * initialized again, so the network should only be used by a fixed set
+ * of threads like the workers of
+ * {@link de.ef.neuralnetworks.util.NeuralNetworkTraining#trainParallel NeuralNetworkTraining}.
+ * </p>
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 2.0
+ */
+public class ConcurrentSlowWave
+	extends SlowWave{
+	
+	/**
+	 * Make always same as @version in JavaDoc in format xxx.yyy.zzz
+	 */
+	private final static long serialVersionUID = 001_000_000L;
+	
+	
+	
+	// state of the last calculation of each thread, not serialized
+	private transient ThreadLocal<Workspace> workspaces;
+	
+	
+	public ConcurrentSlowWave(){}
+	
+	
+	/**
+	 * @throws IllegalArgumentException if the optimizer is not {@link de.ef.slowwave.Optimizer#SGD SGD}
+	 */
+	@Override
+	public void init(int inputSize, int hiddenSizes[], int outputSize, Map<String, Object> properties){
+		if(properties == null) properties = Collections.emptyMap();
+		Optimizer optimizer = Optimizer.of(properties.get("optimizer"), Optimizer.SGD);
+		if(optimizer != Optimizer.SGD)
+			throw new IllegalArgumentException("Optimizer not possible: " + optimizer);
+		super.init(inputSize, hiddenSizes, outputSize, properties);
+	}
+	
+	
+	// keeps plain gradient descent, the only possible optimizer
+	@Override
+	void copy(SlowWave network){
+		super.copy(network);
+		this.optimizer = SlowWaveOptimizer.of(null, this.weights);
+	}
+	
+	@Override
+	void allocate(){
+		int sizes[] = this.sizes;
+		this.workspaces = ThreadLocal.withInitial(() -> new Workspace(sizes));
+	}
+	
+	@Override
+	Workspace workspace(){
+		return this.workspaces.get();
+	}
+	
+	
+	// serialization
+	private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException{
+		input.defaultReadObject();
+		if(this.optimizer.type != Optimizer.SGD)
+			throw new InvalidObjectException("Optimizer not possible: " + this.optimizer.type);
+	}
+}
@@ -0,0 +1,79 @@
+package de.ef.slowwave;
+
+import java.util.Locale;
+
+/**
+ * The enum {@code Optimizer} contains the algorithms used by {@link de.ef.slowwave.SlowWave SlowWave}
+ * to change the weights based on the gradients calculated by the backpropagation.
+ * <p>
+ * The optimizer is selected with the property {@code optimizer}, either as an {@code Optimizer}
+ * or as its name. The property {@code optimizer.momentum} (default {@code 0.9}) is the momentum
+ * of {@link #MOMENTUM}, {@link #NESTEROV} and the first moment decay of {@link #ADAM},
+ * {@code optimizer.decay} (default {@code 0.9} for {@link #RMSPROP} and {@code 0.999} for {@link #ADAM})
+ * the decay of the squared gradients and {@code optimizer.epsilon} (default {@code 1e-8}) the value
+ * added to their root. The state of the optimizer is only serialized if the property
+ * {@code optimizer.state.serialized} is {@code true}, otherwise it starts over after reading.
+ * </p>
+ * <p>
+ * {@link #RMSPROP} and {@link #ADAM} divide the gradients by their magnitude,
+ * they usually need a learning rate of about {@code 0.001}.
+ * The ordinal of each optimizer is serialized, new optimizers must be appended.
+ * </p>
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 2.0
+ */
+public enum Optimizer{
+	
+	/**
+	 * Plain stochastic gradient descent, the weights change by the learning rate times the gradient.
+	 */
+	SGD,
+	
+	/**
+	 * Gradient descent with momentum, every change keeps a part of the last change.
+	 */
+	MOMENTUM,
+	
+	/**
+	 * Gradient descent with Nesterov momentum, the momentum is applied before the gradient
+	 * (in the reformulation which only needs the gradient at the current weights).
+	 */
+	NESTEROV,
+	
+	/**
+	 * RMSProp, the gradient is divided by the root of the decaying average of its squares.
+	 */
+	RMSPROP,
+	
+	/**
+	 * Adam, RMSProp with momentum and a bias correction of both averages.
+	 */
+	ADAM;
+	
+	
+	
+	/**
+	 * Returns the optimizer of the given property value.
+	 * 
+	 * @param value an {@code Optimizer}, the name of one or {@code null}
+	 * @param defaultValue returned if the value is {@code null}
+	 * 
+	 * @return the optimizer
+	 * 
+	 * @throws IllegalArgumentException if the value is no optimizer
+	 */
+	static Optimizer of(Object value, Optimizer defaultValue){
+		if(value == null)
+			return defaultValue;
+		if(value instanceof Optimizer)
+			return (Optimizer)value;
+		try{
+			return Optimizer.valueOf(value.toString().toUpperCase(Locale.ENGLISH));
+		}
+		catch(IllegalArgumentException e){
+			throw new IllegalArgumentException("Optimizer not possible: " + value);
+		}
+	}
+}
@@ -3,10 +3,16 @@ package de.ef.slowwave;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
-import de.ef.neuralnetworks.NeuralNetwork;
+import de.ef.neuralnetworks.CopyableNeuralNetwork;
+import de.ef.neuralnetworks.DataParallelNeuralNetwork;
+import de.ef.neuralnetworks.InferenceModel;
 
 /**
  * {@code SlowWave} is a simple single-threaded implementation of a
@@ -17,13 +23,47 @@ import de.ef.neuralnetworks.NeuralNetwork;
  * has some weight to it and the backpropagation algorithm used changes
  * this weight to train and adjust the network.
  * </p>
+ * <p>
+ * The weights of a layer are stored in one contiguous row-major matrix,
+ * each row holds the weights of one neuron followed by its bias weight.
+ * The outputs and errors of each layer are stored in flat arrays as well,
+ * so the forward and backward pass only stream through primitive arrays.
+ * These loops run on a vectorized kernel if the Vector API is available
+ * (see {@code SlowWaveKernel}).
+ * </p>
+ * <p>
+ * With the property {@code parallelism} set to more than one the neurons of
+ * a layer are calculated by a {@link java.util.concurrent.ForkJoinPool ForkJoinPool},
+ * but only if the layer has at least {@code parallelism.threshold} weights.
+ * Initializing the network again keeps the pool if the parallelism did not change.
+ * Both properties are not serialized.
+ * </p>
+ * <p>
+ * A {@code SlowWave} must not be used by several threads at the same time,
+ * see {@link de.ef.slowwave.ConcurrentSlowWave ConcurrentSlowWave} for that.
+ * Its replicas however can be used by different threads to train the same batch,
+ * and its snapshots created by {@link #freeze() freeze} can be shared by all threads.
+ * Copies for other threads are created and updated with {@link #copy() copy} and {@link #copyFrom copyFrom}.
+ * </p>
+ * <p>
+ * The properties {@code activation} and {@code activation.<layer>} select the
+ * activation function of all layers and of a single layer, the default is the
+ * sigmoid function (see {@link de.ef.slowwave.Activation Activation}).
+ * </p>
+ * <p>
+ * The property {@code optimizer} selects how the gradients change the weights, the default
+ * is plain gradient descent (see {@link de.ef.slowwave.Optimizer Optimizer}).
+ * </p>
+ * <p>
+ * With the property {@code random.seed} the initial weights are always the same.
+ * </p>
  * 
  * @author Erik Fritzsche
  * @version 2.0
  * @since 1.0
  */
 public class SlowWave
-	implements NeuralNetwork<double[], double[]>{
+	implements DataParallelNeuralNetwork<double[], double[]>, CopyableNeuralNetwork<double[], double[]>{
 	
 	/**
 	 * Make always same as @version in JavaDoc in format xxx.yyy.zzz
@@ -36,10 +76,50 @@ public class SlowWave
 	 */
 	public final static double DEFAULT_LEARNING_RATE = 0.1;
 	
+	/**
+	 * The maximum number of samples of a batch processed at once,
+	 * bigger batches are split up into chunks of this size.
+	 */
+	public final static int MAX_BATCH_CHUNK = 64;
+	
+	/**
+	 * The default number of threads calculating a layer, one means sequential.
+	 */
+	public final static int DEFAULT_PARALLELISM = 1;
+	
+	/**
+	 * The default minimum weight count of a layer to calculate it in parallel.
+	 */
+	public final static int DEFAULT_PARALLELISM_THRESHOLD = 1 << 16;
+	
+	// loops over weight rows, vectorized if available
+	private final static SlowWaveKernel KERNEL = SlowWaveKernel.INSTANCE;
+	
 	
 	
-	Neuron layers[][];
+	// neuron count of each layer, index zero is the input layer
+	int sizes[];
+	// weight matrix of each layer with sizes[i] rows of sizes[i - 1] + 1 weights,
+	// the input layer has no weights
+	double weights[][];
 	double learningRate;
+	// activation function of each layer, the input layer has none
+	Activation activations[];
+	SlowWaveOptimizer optimizer;
+	
+	// pruned weights of each layer which stay zero while training, null if not pruned
+	// (see SlowWavePruning), not serialized
+	transient boolean pruned[][];
+	
+	// changed after every change of the weights, not serialized
+	transient volatile long version;
+	
+	// state of the last calculation, not serialized
+	transient Workspace workspace;
+	
+	// pool for wide layers, null if sequential
+	transient ForkJoinPool pool;
+	transient int parallelism, parallelismThreshold;
 	
 	
 	public SlowWave(){}
@@ -47,132 +127,391 @@ public class SlowWave
 	
 	@Override
 	public void init(int inputSize, int hiddenSizes[], int outputSize, Map<String, Object> properties){
-		this.layers = new Neuron[2 + hiddenSizes.length][];
+		this.sizes = new int[2 + hiddenSizes.length];
 		
-		// create the input layer
-		this.layers[0] = new Neuron[inputSize];
-		// create each hidden layer
+		// set size of input, hidden and output layers
+		this.sizes[0] = inputSize;
 		for(int i = 0; i < hiddenSizes.length; i++){
-			this.layers[i + 1] = new Neuron[hiddenSizes[i]];
-		}
-		// create output layer
-		this.layers[this.layers.length - 1] = new Neuron[outputSize];
-		// init the neuron layers (except the input layer)
-		for(int i = 1; i < this.layers.length; i++){
-			// init each neuron
-			for(int j = 0; j < this.layers[i].length; j++){
-				// init all weights including bias neuron
-				// (see documentation for details)
-				this.layers[i][j] =
-					new Neuron(new double[this.layers[i - 1].length + 1]);
-				for(int k = 0; k < this.layers[i - 1].length + 1; k++){
-					// (1 - (Math.random() * 2)) element [-1; 1[
-					this.layers[i][j].setWeight(k, 1 - (Math.random() * 2));
-				}
-			}
-		}
-		// init input layer
-		for(int i = 0; i < this.layers[0].length; i++){
-			this.layers[0][i] = new Neuron(new double[0]);
+			this.sizes[i + 1] = hiddenSizes[i];
 		}
+		this.sizes[this.sizes.length - 1] = outputSize;
 		
-		// set properties
 		if(properties == null) properties = Collections.emptyMap();
 		
+		Long seed = (Long)properties.get("random.seed");
+		Random random = seed == null ? new Random() : new Random(seed);
+		
+		Activation activation = Activation.of(properties.get("activation"), Activation.SIGMOID);
+		this.activations = new Activation[this.sizes.length];
+		for(int i = 1; i < this.sizes.length; i++){
+			this.activations[i] = Activation.of(properties.get("activation." + i), activation);
+		}
+		
+		this.weights = new double[this.sizes.length][];
+		// input layer has no weights
+		this.weights[0] = new double[0];
+		// init all weights including bias neuron of each layer
+		// (see documentation for details)
+		for(int i = 1; i < this.sizes.length; i++){
+			double layer[] = this.weights[i] = new double[this.sizes[i] * (this.sizes[i - 1] + 1)];
+			double range = this.activations[i].weightRange(this.sizes[i - 1]);
+			for(int j = 0; j < layer.length; j++){
+				// (1 - (random.nextDouble() * 2)) element [-1; 1[ for sigmoid functions
+				layer[j] = range - (random.nextDouble() * 2 * range);
+			}
+		}
+		
+		this.pruned = null;
+		this.version++;
+		this.allocate();
+		
+		// set properties
 		this.learningRate = (Double)properties.getOrDefault("learning.rate", DEFAULT_LEARNING_RATE);
+		
+		this.optimizer = SlowWaveOptimizer.of(properties, this.weights);
+		
+		this.parallelism = (Integer)properties.getOrDefault("parallelism", DEFAULT_PARALLELISM);
+		this.parallelismThreshold =
+			(Integer)properties.getOrDefault("parallelism.threshold", DEFAULT_PARALLELISM_THRESHOLD);
+		if(this.parallelism < 1)
+			throw new IllegalArgumentException("Parallelism not possible: " + this.parallelism);
+		// keep a pool of the same size, copies of this network may still use the old pool,
+		// which is not shut down, its idle threads end on their own
+		if(this.parallelism == 1)
+			this.pool = null;
+		else if(this.pool == null || this.pool.getParallelism() != this.parallelism)
+			this.pool = new ForkJoinPool(this.parallelism);
+	}
+	
+	// creates the workspace matching the current layer sizes
+	void allocate(){
+		this.workspace = new Workspace(this.sizes);
+	}
+	
+	// returns the workspace of the calling thread
+	Workspace workspace(){
+		return this.workspace;
+	}
+	
+	// sets the layers and weights to a deep copy of the given network,
+	// the optimizer is copied with a fresh state
+	void copy(SlowWave network){
+		this.sizes = network.sizes.clone();
+		this.weights = new double[network.weights.length][];
+		for(int i = 0; i < this.weights.length; i++){
+			this.weights[i] = network.weights[i].clone();
+		}
+		this.learningRate = network.learningRate;
+		this.activations = network.activations.clone();
+		this.optimizer = network.optimizer.fresh(this.weights);
+		// the pool is thread-safe and can be shared
+		this.pool = network.pool;
+		this.parallelism = network.parallelism;
+		this.parallelismThreshold = network.parallelismThreshold;
+		this.allocate();
 	}
 	
 	
 	@Override
 	public double[] calculate(double inputs[]){
-		// set input neurons
-		for(int i = 0; i < this.layers[0].length; i++){
-			this.layers[0][i].setOutput(inputs[i]);
+		Workspace workspace = this.workspace();
+		this.forward(workspace, inputs);
+		// copy and return outputs from last layer
+		double last[] = workspace.outputs[workspace.outputs.length - 1];
+		return Arrays.copyOf(last, last.length);
+	}
+	
+	@Override
+	public double[] calculate(double inputs[], double outputs[]){
+		Workspace workspace = this.workspace();
+		this.forward(workspace, inputs);
+		// copy outputs from last layer into the buffer
+		double last[] = workspace.outputs[workspace.outputs.length - 1];
+		System.arraycopy(last, 0, outputs, 0, last.length);
+		return outputs;
+	}
+	
+	/**
+	 * Calculates the outputs of the whole batch with matrix-matrix operations in
+	 * chunks of {@link #MAX_BATCH_CHUNK} samples, so every weight row is read
+	 * once for multiple inputs instead of once per input.
+	 */
+	@Override
+	public void calculateBatch(double inputs[][], double outputs[][]){
+		if(inputs.length != outputs.length)
+			throw new IllegalArgumentException("Batch sizes do not match: " + inputs.length + " != " + outputs.length);
+		
+		Workspace workspace = this.workspace();
+		workspace.allocateBatch(this.sizes);
+		int outputCount = this.sizes[this.sizes.length - 1];
+		double last[] = workspace.batchOutputs[this.sizes.length - 1];
+		for(int chunk = 0; chunk < inputs.length; chunk += MAX_BATCH_CHUNK){
+			int count = Math.min(MAX_BATCH_CHUNK, inputs.length - chunk);
+			this.forwardBatch(workspace, inputs, chunk, count);
+			// copy outputs from last layer, one row per sample
+			for(int b = 0; b < count; b++){
+				outputs[chunk + b] = Arrays.copyOfRange(last, b * outputCount, (b + 1) * outputCount);
+			}
 		}
+	}
+	
+	// updates the outputs of every layer based on the given inputs
+	void forward(Workspace workspace, double inputs[]){
+		// set input neurons
+		System.arraycopy(inputs, 0, workspace.outputs[0], 0, this.sizes[0]);
 		// run through each layer (except input)
-		for(int i = 1; i < this.layers.length; i++){
-			// run through each neuron in current layer
-			for(int j = 0; j < this.layers[i].length; j++){
-				// calculate input sum for neuron
-				double sum = 0;
-				for(int k = 0; k < this.layers[i - 1].length; k++){
-					sum +=
-						this.layers[i - 1][k].getOutput()
-						* this.layers[i][j].getWeight(k);
-				}
-				// bias neuron weight
-				sum += this.layers[i][j].getWeight(this.layers[i - 1].length);
-				// calculate output for neuron via sigmoid function
-				// (see documentation for details)
-				this.layers[i][j].setOutput(1 / (1 + Math.pow(Math.E, -sum)));
-			}
+		for(int i = 1; i < this.sizes.length; i++){
+			// split wide layers into ranges of neurons calculated in parallel
+			if(this.pool != null && this.weights[i].length >= this.parallelismThreshold)
+				this.pool.invoke(new LayerTask(workspace, i, 0, this.sizes[i]));
+			else
+				this.forward(workspace, i, 0, this.sizes[i]);
 		}
-		// grab and return outputs from last layer
-		double outputs[] =
-			new double[this.layers[this.layers.length - 1].length];
-		for(int i = 0; i < outputs.length; i++){
-			outputs[i] = this.layers[this.layers.length - 1][i].getOutput();
+	}
+	
+	// updates the outputs of the neurons from start to end of the given layer
+	void forward(Workspace workspace, int layer, int start, int end){
+		double in[] = workspace.outputs[layer - 1], out[] = workspace.outputs[layer], weights[] = this.weights[layer];
+		int inputCount = this.sizes[layer - 1];
+		// run through each neuron (row of the weight matrix) in current range
+		for(int j = start, row = start * (inputCount + 1); j < end; j++, row += inputCount + 1){
+			// calculate input sum for neuron plus bias neuron weight
+			out[j] = KERNEL.dot(in, 0, weights, row, inputCount) + weights[row + inputCount];
 		}
-		return outputs;
+		// calculate output for each neuron via activation function
+		this.activations[layer].apply(out, start, end - start);
 	}
 	
 	
 	@Override
 	public double train(double inputs[], double outputs[]){
+		// only plain gradient descent can update the weights while propagating the errors
+		if(this.optimizer.type != Optimizer.SGD)
+			return this.train(new double[][]{inputs}, new double[][]{outputs});
+		
 		// update neural network to get current output
-		this.calculate(inputs);
+		Workspace workspace = this.workspace();
+		this.forward(workspace, inputs);
+		
+		int last = this.sizes.length - 1;
+		// the error of the output layer is the expected output
+		// minus the real output of each neuron
+		double out[] = workspace.outputs[last], outputErrors[] = workspace.errors[last];
+		Activation activation = this.activations[last];
+		for(int j = 0; j < out.length; j++){
+			outputErrors[j] = activation.derivative(out[j]) * (outputs[j] - out[j]);
+		}
 		// run through each layer (except input), reversed order
-		for(int i = this.layers.length - 1; i > 0; i--){
-			// run through each neuron in current layer and calculate error
-			for(int j = 0; j < this.layers[i].length; j++){
-				double lastError = 0;
-				// if the current layer is the output layer
-				// then the last error is the expected output
-				// minus the real output of the current neuron
-				if(i == this.layers.length - 1){
-					lastError = outputs[j] - this.layers[i][j].getOutput();
-				}
-				// if not then calculate the last error form
-				// the next layer errors
-				else{
-					for(int k = 0; k < this.layers[i + 1].length; k++){
-						lastError +=
-							this.layers[i + 1][k].getError()
-							* this.layers[i + 1][k].getWeight(j);
-					}
-				}
-				// set error for current neuron
-				this.layers[i][j].setError(
-					this.layers[i][j].getOutput()
-					* (1 - this.layers[i][j].getOutput())
-					* lastError
-				);
-				// adjust weights for current neuron
-				for(int k = 0; k < this.layers[i - 1].length; k++){
-					this.layers[i][j].setWeight(k,
-						this.layers[i][j].getWeight(k)
-						+ (
-							learningRate
-							* this.layers[i][j].getError()
-							* this.layers[i - 1][k].getOutput()
-						)
-					);
-				}
+		for(int i = last; i > 0; i--){
+			double in[] = workspace.outputs[i - 1], layer[] = this.weights[i];
+			double current[] = workspace.errors[i], previous[] = workspace.errors[i - 1];
+			int inputCount = this.sizes[i - 1];
+			boolean propagate = (i > 1);
+			
+			if(propagate == true)
+				Arrays.fill(previous, 0);
+			// run through each neuron (row of the weight matrix), propagate its error
+			// to the previous layer and adjust its weights in the same pass
+			for(int j = 0, row = 0; j < current.length; j++, row += inputCount + 1){
+				double error = current[j], step = this.learningRate * error;
+				if(propagate == true)
+					KERNEL.propagate(error, step, layer, row, in, previous, inputCount);
+				else
+					KERNEL.axpy(step, in, 0, layer, row, inputCount);
 				// adjust bias neuron weight
-				this.layers[i][j].setWeight(this.layers[i - 1].length,
-					this.layers[i][j].getWeight(this.layers[i - 1].length)
-					+ (learningRate * this.layers[i][j].getError())
-				);
+				layer[row + inputCount] += step;
 			}
+			// apply derivative of the previous activation to the propagated errors
+			if(propagate == true)
+				this.activations[i - 1].derivative(previous, in, 0, inputCount);
+			if(this.pruned != null)
+				this.clearPruned(i);
 		}
+		this.version++;
 		// calculate and return total error
 		double totalError = 0;
-		for(Neuron output : this.layers[this.layers.length - 1]){
-			totalError += Math.abs(output.getError());
+		for(int j = 0; j < outputErrors.length; j++){
+			totalError += Math.abs(outputErrors[j]);
 		}
 		return totalError;
 	}
 	
+	/**
+	 * Trains the neural-network with the averaged gradients of the whole batch,
+	 * the batch is processed with matrix-matrix operations in chunks of
+	 * {@link #MAX_BATCH_CHUNK} samples.
+	 */
+	@Override
+	public double train(double inputs[][], double outputs[][]){
+		if(inputs.length != outputs.length)
+			throw new IllegalArgumentException("Batch sizes do not match: " + inputs.length + " != " + outputs.length);
+		if(inputs.length == 0)
+			return 0;
+		
+		Workspace workspace = this.workspace();
+		workspace.allocateGradients(this.weights);
+		for(int i = 1; i < workspace.gradients.length; i++){
+			Arrays.fill(workspace.gradients[i], 0);
+		}
+		
+		double totalError = this.accumulateGradients(workspace, inputs, outputs, 0, inputs.length);
+		// average the gradients over the batch
+		this.applyGradients(workspace.gradients, inputs.length);
+		
+		return totalError;
+	}
+	
+	// adds the gradients of the given samples to the gradient arrays of the workspace
+	// and returns the total error of the samples
+	double accumulateGradients(Workspace workspace, double inputs[][], double outputs[][], int offset, int length){
+		workspace.allocateBatch(this.sizes);
+		double totalError = 0;
+		for(int chunk = offset; chunk < offset + length; chunk += MAX_BATCH_CHUNK){
+			totalError += this.backwardBatch(
+				workspace, inputs, outputs, chunk, Math.min(MAX_BATCH_CHUNK, offset + length - chunk)
+			);
+		}
+		return totalError;
+	}
+	
+	// updates the batch outputs of every layer based on count inputs starting at offset
+	void forwardBatch(Workspace workspace, double inputs[][], int offset, int count){
+		// set input neurons, one row per sample
+		int inputCount = this.sizes[0];
+		for(int b = 0; b < count; b++){
+			System.arraycopy(inputs[offset + b], 0, workspace.batchOutputs[0], b * inputCount, inputCount);
+		}
+		// run through each layer (except input)
+		for(int i = 1; i < this.sizes.length; i++){
+			double out[] = workspace.batchOutputs[i];
+			SlowWaveMatrix.multiplyTransposed(
+				workspace.batchOutputs[i - 1], count, this.sizes[i - 1], this.weights[i], this.sizes[i], out
+			);
+			// calculate output for each neuron via activation function
+			this.activations[i].apply(out, 0, count * this.sizes[i]);
+		}
+	}
+	
+	// calculates the errors of count samples starting at offset and adds their gradients
+	private double backwardBatch(Workspace workspace, double inputs[][], double outputs[][], int offset, int count){
+		this.forwardBatch(workspace, inputs, offset, count);
+		
+		int last = this.sizes.length - 1, outputCount = this.sizes[last];
+		double totalError = 0;
+		// the error of the output layer is the expected output
+		// minus the real output of each neuron
+		double out[] = workspace.batchOutputs[last], outputErrors[] = workspace.batchErrors[last];
+		Activation activation = this.activations[last];
+		for(int b = 0, index = 0; b < count; b++){
+			double expected[] = outputs[offset + b];
+			for(int j = 0; j < outputCount; j++, index++){
+				outputErrors[index] = activation.derivative(out[index]) * (expected[j] - out[index]);
+				totalError += Math.abs(outputErrors[index]);
+			}
+		}
+		// run through each layer (except input), reversed order
+		for(int i = last; i > 0; i--){
+			double in[] = workspace.batchOutputs[i - 1], current[] = workspace.batchErrors[i];
+			int inputCount = this.sizes[i - 1];
+			// propagate the errors with the weights before this batch
+			if(i > 1){
+				double previous[] = workspace.batchErrors[i - 1];
+				Arrays.fill(previous, 0, count * inputCount, 0);
+				SlowWaveMatrix.multiply(current, count, this.sizes[i], this.weights[i], inputCount, previous);
+				// apply derivative of the previous activation to the propagated errors
+				this.activations[i - 1].derivative(previous, in, 0, count * inputCount);
+			}
+			SlowWaveMatrix.accumulate(current, count, this.sizes[i], in, inputCount, workspace.gradients[i]);
+		}
+		return totalError;
+	}
+	
+	/**
+	 * Creates a new {@code SlowWave} with a copy of the layers, weights, learning rate and
+	 * optimizer settings, the state of the optimizer and the pruned weights are not copied.
+	 * The copy starts like a network with these weights which was never trained.
+	 */
+	@Override
+	public SlowWave copy(){
+		if(this.sizes == null)
+			throw new IllegalStateException("Neural network not initialized");
+		SlowWave network = new SlowWave();
+		network.copy(this);
+		return network;
+	}
+	
+	/**
+	 * Copies the weights of the given {@code SlowWave} with the same layers into the existing weight arrays.
+	 */
+	@Override
+	public void copyFrom(CopyableNeuralNetwork<double[], double[]> source){
+		if(source instanceof SlowWave == false || Arrays.equals(((SlowWave)source).sizes, this.sizes) == false)
+			throw new IllegalArgumentException("Network not possible: " + source);
+		SlowWave network = (SlowWave)source;
+		for(int i = 1; i < this.weights.length; i++){
+			System.arraycopy(network.weights[i], 0, this.weights[i], 0, this.weights[i].length);
+		}
+		this.learningRate = network.learningRate;
+		System.arraycopy(network.activations, 0, this.activations, 0, this.activations.length);
+		this.version++;
+	}
+	
+	@Override
+	public long version(){
+		return this.version;
+	}
+	
+	/**
+	 * Creates a {@link de.ef.slowwave.SlowWaveModel SlowWaveModel} with a copy of the current weights.
+	 */
+	@Override
+	public InferenceModel<double[], double[]> freeze(){
+		if(this.sizes == null)
+			throw new IllegalStateException("Neural network not initialized");
+		return new SlowWaveModel(this);
+	}
+	
+	
+	@Override
+	public Replica<double[], double[]> createReplica(){
+		if(this.sizes == null)
+			throw new IllegalStateException("Neural network not initialized");
+		return new SlowWaveReplica();
+	}
+	
+	@Override
+	public void applyGradients(Replica<double[], double[]> replica, int count){
+		this.applyGradients(this.replica(replica).workspace.gradients, count);
+	}
+	
+	// returns the replica if it belongs to this network
+	private SlowWaveReplica replica(Replica<double[], double[]> replica){
+		if(replica instanceof SlowWaveReplica == false || ((SlowWaveReplica)replica).network() != this)
+			throw new IllegalArgumentException("Replica not possible: " + replica);
+		return (SlowWaveReplica)replica;
+	}
+	
+	// changes the weights by the gradients summed over count samples
+	void applyGradients(double gradients[][], int count){
+		this.optimizer.apply(this.weights, gradients, this.learningRate, count);
+		if(this.pruned != null){
+			for(int i = 1; i < this.weights.length; i++){
+				this.clearPruned(i);
+			}
+		}
+		this.version++;
+	}
+	
+	// sets the pruned weights of the layer back to zero
+	void clearPruned(int layer){
+		double weights[] = this.weights[layer];
+		boolean pruned[] = this.pruned[layer];
+		for(int k = 0; k < pruned.length; k++){
+			if(pruned[k] == true)
+				weights[k] = 0;
+		}
+	}
+	
 	
 	// serialization
 	private void writeObject(ObjectOutputStream output) throws IOException{
@@ -181,54 +520,151 @@ public class SlowWave
 	
 	private void readObject(ObjectInputStream input) throws IOException{
 		SlowWaveSerialization.read(this, input);
+		// runtime properties are not serialized
+		this.parallelism = DEFAULT_PARALLELISM;
+		this.parallelismThreshold = DEFAULT_PARALLELISM_THRESHOLD;
 	}
 	
 	
 	
 	/**
-	 * The class {@code Neuron} is basically a container for
-	 * an output value, an error value and the weights of the
-	 * connections to the previous layer with according
-	 * getter and setter methods.
+	 * The class {@code LayerTask} calculates a range of neurons of one layer,
+	 * ranges bigger than a fair share of the pool are split in half.
 	 * 
 	 * @author Erik Fritzsche
 	 * @version 1.0
-	 * @since 1.0
+	 * @since 2.0
 	 */
-	class Neuron{
+	private class LayerTask
+		extends RecursiveAction{
+		
+		private final static long serialVersionUID = 1L;
+		
+		
+		
+		private final Workspace workspace;
+		private final int layer, start, end;
+		
+		
+		private LayerTask(Workspace workspace, int layer, int start, int end){
+			this.workspace = workspace;
+			this.layer = layer;
+			this.start = start;
+			this.end = end;
+		}
+		
+		
+		@Override
+		protected void compute(){
+			// four tasks per thread to balance uneven progress
+			int share = Math.max(1, SlowWave.this.sizes[this.layer] / (SlowWave.this.parallelism * 4));
+			if(this.end - this.start <= share){
+				SlowWave.this.forward(this.workspace, this.layer, this.start, this.end);
+				return;
+			}
+			int middle = (this.start + this.end) >>> 1;
+			invokeAll(
+				new LayerTask(this.workspace, this.layer, this.start, middle),
+				new LayerTask(this.workspace, this.layer, middle, this.end)
+			);
+		}
+	}
+	
+	// a replica has its own workspace and gradients, but shares the weights
+	private class SlowWaveReplica
+		implements Replica<double[], double[]>{
 		
-		private double output, error, weights[];
+		private final Workspace workspace;
 		
 		
-		Neuron(double weights[]){
-			this.weights = weights;
+		private SlowWaveReplica(){
+			this.workspace = new Workspace(SlowWave.this.sizes);
+			this.workspace.allocateGradients(SlowWave.this.weights);
 		}
 		
 		
-		void setOutput(double value){
-			this.output = value;
+		private SlowWave network(){
+			return SlowWave.this;
 		}
 		
-		double getOutput(){
-			return this.output;
+		@Override
+		public double[] calculate(double input[]){
+			SlowWave.this.forward(this.workspace, input);
+			double last[] = this.workspace.outputs[this.workspace.outputs.length - 1];
+			return Arrays.copyOf(last, last.length);
 		}
 		
+		@Override
+		public double accumulateGradients(double inputs[][], double outputs[][], int offset, int length){
+			return SlowWave.this.accumulateGradients(this.workspace, inputs, outputs, offset, length);
+		}
 		
-		void setError(double value){
-			this.error = value;
+		@Override
+		public void addGradients(Replica<double[], double[]> other){
+			double gradients[][] = this.workspace.gradients, others[][] = SlowWave.this.replica(other).workspace.gradients;
+			for(int i = 1; i < gradients.length; i++){
+				double gradient[] = gradients[i], addend[] = others[i];
+				for(int j = 0; j < gradient.length; j++){
+					gradient[j] += addend[j];
+				}
+			}
 		}
 		
-		double getError(){
-			return this.error;
+		@Override
+		public void clearGradients(){
+			for(int i = 1; i < this.workspace.gradients.length; i++){
+				Arrays.fill(this.workspace.gradients[i], 0);
+			}
+		}
+	}
+	
+	/**
+	 * The class {@code Workspace} is basically a container for
+	 * the outputs and errors of each layer used by one calculation,
+	 * the weights are not part of it and shared by all workspaces.
+	 * <p>
+	 * The batch and gradient arrays are created on first use, the batch
+	 * arrays hold one row per sample and are sized for the biggest chunk.
+	 * </p>
+	 * 
+	 * @author Erik Fritzsche
+	 * @version 1.0
+	 * @since 2.0
+	 */
+	static class Workspace{
+		
+		final double outputs[][], errors[][];
+		double batchOutputs[][], batchErrors[][], gradients[][];
+		
+		
+		Workspace(int sizes[]){
+			this.outputs = new double[sizes.length][];
+			this.errors = new double[sizes.length][];
+			for(int i = 0; i < sizes.length; i++){
+				this.outputs[i] = new double[sizes[i]];
+				this.errors[i] = new double[sizes[i]];
+			}
 		}
 		
 		
-		void setWeight(int index, double value){
-			this.weights[index] = value;
+		void allocateBatch(int sizes[]){
+			if(this.batchOutputs != null)
+				return;
+			this.batchOutputs = new double[sizes.length][];
+			this.batchErrors = new double[sizes.length][];
+			for(int i = 0; i < sizes.length; i++){
+				this.batchOutputs[i] = new double[MAX_BATCH_CHUNK * sizes[i]];
+				this.batchErrors[i] = new double[MAX_BATCH_CHUNK * sizes[i]];
+			}
 		}
 		
-		double getWeight(int index){
-			return weights[index];
+		void allocateGradients(double weights[][]){
+			if(this.gradients != null)
+				return;
+			this.gradients = new double[weights.length][];
+			for(int i = 0; i < weights.length; i++){
+				this.gradients[i] = new double[weights[i].length];
+			}
 		}
 	}
 }
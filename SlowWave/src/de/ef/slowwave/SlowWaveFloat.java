@@ -0,0 +1,278 @@
+package de.ef.slowwave;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+
+import de.ef.neuralnetworks.NeuralNetwork;
+
+/**
+ * {@code SlowWaveFloat} is the single precision version of {@link de.ef.slowwave.SlowWave SlowWave}.
+ * <p>
+ * The network is the same, but weights, outputs and errors are stored and calculated as floats,
+ * so only half of the memory is read per calculation. This is plenty for calculating outputs,
+ * while training a network should rather be done with {@code SlowWave}, which can be imported
+ * with {@link #SlowWaveFloat(SlowWave) SlowWaveFloat(SlowWave)} afterwards.
+ * </p>
+ * <p>
+ * Both use the same serialization format, a {@code SlowWaveFloat} stores
+ * its weights as floats and clears the double precision flag of the header.
+ * </p>
+ * <p>
+ * A {@code SlowWaveFloat} must not be used by several threads at the same time.
+ * </p>
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 2.0
+ */
+public class SlowWaveFloat
+	implements NeuralNetwork<float[], float[]>{
+	
+	/**
+	 * Make always same as @version in JavaDoc in format xxx.yyy.zzz
+	 */
+	private final static long serialVersionUID = 001_000_000L;
+	
+	
+	
+	// same layout as SlowWave
+	int sizes[];
+	float weights[][];
+	float learningRate;
+	Activation activations[];
+	
+	// state of the last calculation, not serialized
+	transient float outputs[][], errors[][], batchOutputs[][];
+	
+	
+	public SlowWaveFloat(){}
+	
+	/**
+	 * Creates a new {@code SlowWaveFloat} with the layers, weights and learning rate
+	 * of the given network, the weights are rounded to the nearest float.
+	 * 
+	 * @param network an initialized network
+	 * 
+	 * @throws IllegalArgumentException if the network is not initialized
+	 */
+	public SlowWaveFloat(SlowWave network){
+		if(network.sizes == null)
+			throw new IllegalArgumentException("Uninitialized network not possible: " + network);
+		
+		this.sizes = network.sizes.clone();
+		this.weights = new float[network.weights.length][];
+		for(int i = 0; i < this.weights.length; i++){
+			double layer[] = network.weights[i];
+			this.weights[i] = new float[layer.length];
+			for(int j = 0; j < layer.length; j++){
+				this.weights[i][j] = (float)layer[j];
+			}
+		}
+		this.learningRate = (float)network.learningRate;
+		this.activations = network.activations.clone();
+		
+		this.allocate();
+	}
+	
+	
+	@Override
+	public void init(int inputSize, int hiddenSizes[], int outputSize, Map<String, Object> properties){
+		this.sizes = new int[2 + hiddenSizes.length];
+		
+		// set size of input, hidden and output layers
+		this.sizes[0] = inputSize;
+		for(int i = 0; i < hiddenSizes.length; i++){
+			this.sizes[i + 1] = hiddenSizes[i];
+		}
+		this.sizes[this.sizes.length - 1] = outputSize;
+		
+		if(properties == null) properties = Collections.emptyMap();
+		
+		Long seed = (Long)properties.get("random.seed");
+		Random random = seed == null ? new Random() : new Random(seed);
+		
+		Activation activation = Activation.of(properties.get("activation"), Activation.SIGMOID);
+		this.activations = new Activation[this.sizes.length];
+		for(int i = 1; i < this.sizes.length; i++){
+			this.activations[i] = Activation.of(properties.get("activation." + i), activation);
+		}
+		
+		this.weights = new float[this.sizes.length][];
+		// input layer has no weights
+		this.weights[0] = new float[0];
+		// init all weights including bias neuron of each layer
+		for(int i = 1; i < this.sizes.length; i++){
+			float layer[] = this.weights[i] = new float[this.sizes[i] * (this.sizes[i - 1] + 1)];
+			float range = (float)this.activations[i].weightRange(this.sizes[i - 1]);
+			for(int j = 0; j < layer.length; j++){
+				// (1 - (random.nextFloat() * 2)) element ]-1; 1] for sigmoid functions
+				layer[j] = range - (random.nextFloat() * 2 * range);
+			}
+		}
+		
+		this.allocate();
+		
+		// set properties
+		this.learningRate =
+			((Double)properties.getOrDefault("learning.rate", SlowWave.DEFAULT_LEARNING_RATE)).floatValue();
+	}
+	
+	// creates the output and error arrays matching the current layer sizes
+	void allocate(){
+		this.outputs = new float[this.sizes.length][];
+		this.errors = new float[this.sizes.length][];
+		for(int i = 0; i < this.sizes.length; i++){
+			this.outputs[i] = new float[this.sizes[i]];
+			this.errors[i] = new float[this.sizes[i]];
+		}
+		this.batchOutputs = null;
+	}
+	
+	
+	@Override
+	public float[] calculate(float inputs[]){
+		this.forward(inputs);
+		// copy and return outputs from last layer
+		float last[] = this.outputs[this.outputs.length - 1];
+		return Arrays.copyOf(last, last.length);
+	}
+	
+	@Override
+	public float[] calculate(float inputs[], float outputs[]){
+		this.forward(inputs);
+		// copy outputs from last layer into the buffer
+		float last[] = this.outputs[this.outputs.length - 1];
+		System.arraycopy(last, 0, outputs, 0, last.length);
+		return outputs;
+	}
+	
+	/**
+	 * Calculates the outputs of the whole batch with matrix-matrix operations in
+	 * chunks of {@link de.ef.slowwave.SlowWave#MAX_BATCH_CHUNK} samples.
+	 */
+	@Override
+	public void calculateBatch(float inputs[][], float outputs[][]){
+		if(inputs.length != outputs.length)
+			throw new IllegalArgumentException("Batch sizes do not match: " + inputs.length + " != " + outputs.length);
+		
+		if(this.batchOutputs == null){
+			this.batchOutputs = new float[this.sizes.length][];
+			for(int i = 0; i < this.sizes.length; i++){
+				this.batchOutputs[i] = new float[SlowWave.MAX_BATCH_CHUNK * this.sizes[i]];
+			}
+		}
+		int outputCount = this.sizes[this.sizes.length - 1];
+		float last[] = this.batchOutputs[this.sizes.length - 1];
+		for(int chunk = 0; chunk < inputs.length; chunk += SlowWave.MAX_BATCH_CHUNK){
+			int count = Math.min(SlowWave.MAX_BATCH_CHUNK, inputs.length - chunk);
+			
+			// set input neurons, one row per sample
+			int inputCount = this.sizes[0];
+			for(int b = 0; b < count; b++){
+				System.arraycopy(inputs[chunk + b], 0, this.batchOutputs[0], b * inputCount, inputCount);
+			}
+			// run through each layer (except input)
+			for(int i = 1; i < this.sizes.length; i++){
+				float out[] = this.batchOutputs[i];
+				SlowWaveMatrix.multiplyTransposed(
+					this.batchOutputs[i - 1], count, this.sizes[i - 1], this.weights[i], this.sizes[i], out
+				);
+				Activation activation = this.activations[i];
+				for(int j = 0; j < count * this.sizes[i]; j++){
+					out[j] = (float)activation.apply(out[j]);
+				}
+			}
+			// copy outputs from last layer, one row per sample
+			for(int b = 0; b < count; b++){
+				outputs[chunk + b] = Arrays.copyOfRange(last, b * outputCount, (b + 1) * outputCount);
+			}
+		}
+	}
+	
+	// updates the outputs of every layer based on the given inputs
+	void forward(float inputs[]){
+		// set input neurons
+		System.arraycopy(inputs, 0, this.outputs[0], 0, this.sizes[0]);
+		// run through each layer (except input)
+		for(int i = 1; i < this.sizes.length; i++){
+			float in[] = this.outputs[i - 1], out[] = this.outputs[i], weights[] = this.weights[i];
+			int inputCount = this.sizes[i - 1];
+			Activation activation = this.activations[i];
+			// run through each neuron (row of the weight matrix)
+			for(int j = 0, row = 0; j < out.length; j++, row += inputCount + 1){
+				float sum = 0;
+				for(int k = 0; k < inputCount; k++){
+					sum += in[k] * weights[row + k];
+				}
+				// bias neuron weight
+				out[j] = (float)activation.apply(sum + weights[row + inputCount]);
+			}
+		}
+	}
+	
+	
+	@Override
+	public double train(float inputs[], float outputs[]){
+		// update neural network to get current output
+		this.forward(inputs);
+		
+		int last = this.sizes.length - 1;
+		// the error of the output layer is the expected output
+		// minus the real output of each neuron
+		float out[] = this.outputs[last], outputErrors[] = this.errors[last];
+		Activation activation = this.activations[last];
+		for(int j = 0; j < out.length; j++){
+			outputErrors[j] = (float)activation.derivative(out[j]) * (outputs[j] - out[j]);
+		}
+		// run through each layer (except input), reversed order
+		for(int i = last; i > 0; i--){
+			float in[] = this.outputs[i - 1], layer[] = this.weights[i];
+			float current[] = this.errors[i], previous[] = this.errors[i - 1];
+			int inputCount = this.sizes[i - 1];
+			boolean propagate = (i > 1);
+			
+			if(propagate == true)
+				Arrays.fill(previous, 0);
+			// run through each neuron (row of the weight matrix), propagate its error
+			// to the previous layer and adjust its weights in the same pass
+			for(int j = 0, row = 0; j < current.length; j++, row += inputCount + 1){
+				float error = current[j], step = this.learningRate * error;
+				for(int k = 0; k < inputCount; k++){
+					if(propagate == true)
+						previous[k] += error * layer[row + k];
+					layer[row + k] += step * in[k];
+				}
+				// adjust bias neuron weight
+				layer[row + inputCount] += step;
+			}
+			// apply derivative of the previous activation to the propagated errors
+			if(propagate == true){
+				Activation previousActivation = this.activations[i - 1];
+				for(int k = 0; k < inputCount; k++){
+					previous[k] *= (float)previousActivation.derivative(in[k]);
+				}
+			}
+		}
+		// calculate and return total error
+		double totalError = 0;
+		for(int j = 0; j < outputErrors.length; j++){
+			totalError += Math.abs(outputErrors[j]);
+		}
+		return totalError;
+	}
+	
+	
+	// serialization
+	private void writeObject(ObjectOutputStream output) throws IOException{
+		SlowWaveSerialization.write(this, output);
+	}
+	
+	private void readObject(ObjectInputStream input) throws IOException{
+		SlowWaveSerialization.read(this, input);
+	}
+}
@@ -0,0 +1,336 @@
+package de.ef.slowwave;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Arrays;
+
+import de.ef.neuralnetworks.InferenceModel;
+import de.ef.neuralnetworks.NeuralNetwork;
+import de.ef.neuralnetworks.pipeline.image.GrayscaleImage;
+
+/**
+ * {@code SlowWaveInt8} is an inference-only version of {@link de.ef.slowwave.SlowWave SlowWave}
+ * with weights quantized to 8 bit integers.
+ * <p>
+ * Every row of a weight matrix (the weights of one neuron) is scaled by its own factor
+ * so that its largest weight becomes {@code 127}, the bias weights stay floating point.
+ * The inputs of each layer are quantized the same way for every calculation, to
+ * {@code [0; 255]} if they are not negative and to {@code [-127; 127]} otherwise,
+ * and multiplied with the weights in 32 bit integers. The weights only need
+ * an eighth of the memory of a {@code SlowWave}, so much bigger networks stay in cache.
+ * </p>
+ * <p>
+ * Pixels of a {@link de.ef.neuralnetworks.pipeline.image.GrayscaleImage GrayscaleImage}
+ * can be used as inputs directly, the results are the same as for the inputs {@code pixel / 255}
+ * created by the {@link de.ef.neuralnetworks.pipeline.image.GrayscaleImageConverter GrayscaleImageConverter}
+ * but without any rounding of the first layer. The loss of accuracy can be checked with
+ * {@link #compare(NeuralNetwork, double[][]) compare}.
+ * </p>
+ * <p>
+ * A {@code SlowWaveInt8} is thread-safe, every thread calculates with its own outputs.
+ * </p>
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 2.0
+ */
+public class SlowWaveInt8
+	implements InferenceModel<double[], double[]>{
+	
+	/**
+	 * Make always same as @version in JavaDoc in format xxx.yyy.zzz
+	 */
+	private final static long serialVersionUID = 001_000_000L;
+	
+	/**
+	 * Maximum number of inputs of a layer, so that the sum of a neuron cannot overflow.
+	 */
+	public final static int MAX_INPUTS = Integer.MAX_VALUE / (255 * 127);
+	
+	
+	
+	private final int sizes[];
+	// weights without bias column, one row per neuron
+	private final byte weights[][];
+	// factor of each row and bias of each neuron
+	private final float scales[][], biases[][];
+	private final Activation activations[];
+	
+	// outputs of each thread, not serialized
+	private transient ThreadLocal<Outputs> outputs;
+	
+	
+	/**
+	 * Creates a new {@code SlowWaveInt8} with the layers and quantized weights of the given network.
+	 * 
+	 * @param network an initialized network
+	 * 
+	 * @throws IllegalArgumentException if the network is not initialized or a layer has more than
+	 * {@link #MAX_INPUTS} inputs
+	 */
+	public SlowWaveInt8(SlowWave network){
+		if(network.sizes == null)
+			throw new IllegalArgumentException("Uninitialized network not possible: " + network);
+		
+		this.sizes = network.sizes.clone();
+		this.activations = network.activations.clone();
+		this.weights = new byte[this.sizes.length][];
+		this.scales = new float[this.sizes.length][];
+		this.biases = new float[this.sizes.length][];
+		// input layer has no weights
+		this.weights[0] = new byte[0];
+		this.scales[0] = this.biases[0] = new float[0];
+		for(int i = 1; i < this.sizes.length; i++){
+			int inputCount = this.sizes[i - 1];
+			if(inputCount > MAX_INPUTS)
+				throw new IllegalArgumentException("Layer size not possible: " + inputCount);
+			
+			double layer[] = network.weights[i];
+			byte weights[] = this.weights[i] = new byte[this.sizes[i] * inputCount];
+			float scales[] = this.scales[i] = new float[this.sizes[i]];
+			float biases[] = this.biases[i] = new float[this.sizes[i]];
+			for(int j = 0, row = 0; j < this.sizes[i]; j++, row += inputCount + 1){
+				double max = 0;
+				for(int k = 0; k < inputCount; k++){
+					max = Math.max(max, Math.abs(layer[row + k]));
+				}
+				// a row of zeros stays zero
+				double scale = max / 127;
+				if(scale > 0){
+					for(int k = 0; k < inputCount; k++){
+						weights[j * inputCount + k] = (byte)Math.round(layer[row + k] / scale);
+					}
+				}
+				scales[j] = (float)scale;
+				biases[j] = (float)layer[row + inputCount];
+			}
+		}
+		
+		this.allocate();
+	}
+	
+	// creates the outputs of each thread
+	private void allocate(){
+		int sizes[] = this.sizes;
+		this.outputs = ThreadLocal.withInitial(() -> new Outputs(sizes));
+	}
+	
+	
+	@Override
+	public double[] calculate(double inputs[]){
+		return this.calculate(inputs, new double[this.sizes[this.sizes.length - 1]]);
+	}
+	
+	@Override
+	public double[] calculate(double inputs[], double outputs[]){
+		Outputs current = this.outputs.get();
+		double scale = quantize(inputs, this.sizes[0], current.quantized);
+		return this.forward(current, scale, outputs);
+	}
+	
+	/**
+	 * Calculates the outputs for the given pixels, every pixel is an unsigned byte
+	 * which is used as the input {@code pixel / 255}.
+	 * 
+	 * @param pixels the pixels of a grayscale image
+	 * 
+	 * @return the outputs of the network
+	 */
+	public double[] calculate(byte pixels[]){
+		return this.calculate(pixels, new double[this.sizes[this.sizes.length - 1]]);
+	}
+	
+	/**
+	 * Calculates the outputs for the given pixels into the given buffer,
+	 * see {@link #calculate(byte[]) calculate}.
+	 * 
+	 * @param pixels the pixels of a grayscale image
+	 * @param outputs buffer for the outputs of the network
+	 * 
+	 * @return the given buffer
+	 */
+	public double[] calculate(byte pixels[], double outputs[]){
+		Outputs current = this.outputs.get();
+		for(int k = 0; k < this.sizes[0]; k++){
+			current.quantized[k] = pixels[k] & 0xFF;
+		}
+		return this.forward(current, 1 / 255.0, outputs);
+	}
+	
+	/**
+	 * Calculates the outputs for the pixels of the given image,
+	 * see {@link #calculate(byte[]) calculate}.
+	 * 
+	 * @param image a grayscale image with as many pixels as inputs
+	 * 
+	 * @return the outputs of the network
+	 */
+	public double[] calculate(GrayscaleImage image){
+		return this.calculate(image.data);
+	}
+	
+	// calculates all layers from the quantized inputs and copies the last layer into outputs
+	private double[] forward(Outputs current, double scale, double outputs[]){
+		int last = this.sizes.length - 1;
+		for(int i = 1; i <= last; i++){
+			double out[] = current.outputs[i];
+			this.multiply(i, current.quantized, scale, out);
+			this.activations[i].apply(out, 0, this.sizes[i]);
+			if(i < last)
+				scale = quantize(out, this.sizes[i], current.quantized);
+		}
+		System.arraycopy(current.outputs[last], 0, outputs, 0, this.sizes[last]);
+		return outputs;
+	}
+	
+	// calculates the weighted sums of a layer from its quantized inputs
+	private void multiply(int layer, int inputs[], double scale, double outputs[]){
+		byte weights[] = this.weights[layer];
+		float scales[] = this.scales[layer], biases[] = this.biases[layer];
+		int inputCount = this.sizes[layer - 1];
+		for(int j = 0, row = 0; j < this.sizes[layer]; j++, row += inputCount){
+			int sum = 0;
+			for(int k = 0; k < inputCount; k++){
+				sum += inputs[k] * weights[row + k];
+			}
+			outputs[j] = sum * (scale * scales[j]) + biases[j];
+		}
+	}
+	
+	// quantizes the values to integers and returns the scale of one step
+	private static double quantize(double values[], int count, int quantized[]){
+		double min = 0, max = 0;
+		for(int k = 0; k < count; k++){
+			min = Math.min(min, values[k]);
+			max = Math.max(max, values[k]);
+		}
+		// use all 8 bit for values which are not negative (like sigmoid outputs)
+		double scale = min < 0 ? Math.max(max, -min) / 127 : max / 255;
+		if(scale > 0 == false){
+			Arrays.fill(quantized, 0, count, 0);
+			return 0;
+		}
+		for(int k = 0; k < count; k++){
+			quantized[k] = (int)Math.round(values[k] / scale);
+		}
+		return scale;
+	}
+	
+	
+	/**
+	 * Returns the number of bytes used by the weights, scales and biases.
+	 * 
+	 * @return the size of all weights in bytes
+	 */
+	public long weightBytes(){
+		long bytes = 0;
+		for(int i = 1; i < this.sizes.length; i++){
+			bytes += this.weights[i].length + 4L * (this.scales[i].length + this.biases[i].length);
+		}
+		return bytes;
+	}
+	
+	/**
+	 * Compares the outputs of this network with the outputs of the given network
+	 * (usually the network it was created from) for all inputs.
+	 * 
+	 * @param network the network to compare with
+	 * @param inputs inputs of both networks
+	 * 
+	 * @return the differences of the outputs
+	 * 
+	 * @throws IOException if the given network experienced an error
+	 */
+	public Comparison compare(NeuralNetwork<double[], double[]> network, double inputs[][]) throws IOException{
+		double maxError = 0, totalError = 0;
+		int values = 0, matches = 0;
+		for(double input[] : inputs){
+			double expected[] = network.calculate(input), actual[] = this.calculate(input);
+			for(int j = 0; j < expected.length; j++){
+				double error = Math.abs(expected[j] - actual[j]);
+				maxError = Math.max(maxError, error);
+				totalError += error;
+			}
+			values += expected.length;
+			if(maximum(expected) == maximum(actual))
+				matches++;
+		}
+		return new Comparison(inputs.length, maxError, values == 0 ? 0 : totalError / values, matches);
+	}
+	
+	// returns the index of the biggest value
+	private static int maximum(double values[]){
+		int index = 0;
+		for(int j = 1; j < values.length; j++){
+			if(values[j] > values[index])
+				index = j;
+		}
+		return index;
+	}
+	
+	
+	// serialization
+	private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException{
+		input.defaultReadObject();
+		this.allocate();
+	}
+	
+	
+	
+	/**
+	 * The differences between the outputs of a {@code SlowWaveInt8} and another network,
+	 * created by {@link de.ef.slowwave.SlowWaveInt8#compare(NeuralNetwork, double[][]) compare}.
+	 */
+	public final static class Comparison{
+		
+		/**
+		 * Number of compared inputs.
+		 */
+		public final int samples;
+		/**
+		 * Maximum and mean absolute difference of all outputs.
+		 */
+		public final double maxError, meanError;
+		/**
+		 * Number of inputs for which both networks have their biggest output at the same index,
+		 * which is the result of a classification.
+		 */
+		public final int matches;
+		
+		
+		private Comparison(int samples, double maxError, double meanError, int matches){
+			this.samples = samples;
+			this.maxError = maxError;
+			this.meanError = meanError;
+			this.matches = matches;
+		}
+		
+		
+		@Override
+		public String toString(){
+			return "samples: " + this.samples + ", max error: " + this.maxError + ", mean error: " + this.meanError
+				+ ", matching classifications: " + this.matches + "/" + this.samples;
+		}
+	}
+	
+	
+	
+	// state of the last calculation of a thread
+	private final static class Outputs{
+		
+		private final double outputs[][];
+		// quantized inputs of the current layer
+		private final int quantized[];
+		
+		
+		private Outputs(int sizes[]){
+			this.outputs = new double[sizes.length][];
+			int max = 0;
+			for(int i = 0; i < sizes.length; i++){
+				this.outputs[i] = new double[sizes[i]];
+				max = Math.max(max, sizes[i]);
+			}
+			this.quantized = new int[max];
+		}
+	}
+}
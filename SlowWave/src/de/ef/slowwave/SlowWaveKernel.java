@@ -0,0 +1,110 @@
+package de.ef.slowwave;
+
+/**
+ * {@code SlowWaveKernel} is a helper class for {@link de.ef.slowwave.SlowWave SlowWave}
+ * with the loops over the weight rows of the calculation and the training.
+ * <p>
+ * The scalar kernel is always available. If the class {@code SlowWaveVectorKernel}
+ * (source folder {@code src-vector}, needs Java 16 or newer) is on the class path
+ * and the module {@code jdk.incubator.vector} is added to the VM, that kernel is used
+ * instead, unless the system property {@code de.ef.slowwave.kernel} is set to {@code scalar}.
+ * </p>
+ * <p>
+ * Every kernel must match the scalar kernel within these bounds:
+ * a dot product may differ by {@code length * 2^-52} times the sum of the absolute products
+ * (the vector kernel adds in a different order), an update by one ulp of each element and
+ * a sigmoid output by {@code 2^-50}.
+ * </p>
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 2.0
+ */
+abstract class SlowWaveKernel{
+	
+	// the kernel used by all networks, selected once at class loading
+	final static SlowWaveKernel INSTANCE = load();
+	
+	
+	
+	SlowWaveKernel(){}
+	
+	
+	
+	// returns the sum of a[aOffset + k] * b[bOffset + k] for k from 0 to length
+	abstract double dot(double a[], int aOffset, double b[], int bOffset, int length);
+	
+	// y[yOffset + k] += alpha * x[xOffset + k] for k from 0 to length
+	abstract void axpy(double alpha, double x[], int xOffset, double y[], int yOffset, int length);
+	
+	// previous[k] += error * weights[offset + k] and weights[offset + k] += step * inputs[k]
+	// for k from 0 to length, every weight is read before its update
+	abstract void propagate(
+		double error, double step, double weights[], int offset, double inputs[], double previous[], int length);
+	
+	// values[offset + k] = 1 / (1 + e^-values[offset + k]) for k from 0 to length
+	abstract void sigmoid(double values[], int offset, int length);
+	
+	
+	
+	private static SlowWaveKernel load(){
+		if("scalar".equals(System.getProperty("de.ef.slowwave.kernel")) == false){
+			try{
+				return (SlowWaveKernel)Class.forName("de.ef.slowwave.SlowWaveVectorKernel").newInstance();
+			}
+			catch(ReflectiveOperationException | LinkageError e){
+				// not compiled or module not added, fall back to scalar kernel
+			}
+		}
+		return new Scalar();
+	}
+	
+	
+	
+	/**
+	 * The class {@code Scalar} is the plain Java kernel working on one element at a time.
+	 * 
+	 * @author Erik Fritzsche
+	 * @version 1.0
+	 * @since 2.0
+	 */
+	final static class Scalar
+		extends SlowWaveKernel{
+		
+		Scalar(){}
+		
+		
+		@Override
+		double dot(double a[], int aOffset, double b[], int bOffset, int length){
+			double sum = 0;
+			for(int k = 0; k < length; k++){
+				sum += a[aOffset + k] * b[bOffset + k];
+			}
+			return sum;
+		}
+		
+		@Override
+		void axpy(double alpha, double x[], int xOffset, double y[], int yOffset, int length){
+			for(int k = 0; k < length; k++){
+				y[yOffset + k] += alpha * x[xOffset + k];
+			}
+		}
+		
+		@Override
+		void propagate(
+				double error, double step, double weights[], int offset, double inputs[], double previous[], int length){
+			for(int k = 0; k < length; k++){
+				previous[k] += error * weights[offset + k];
+				weights[offset + k] += step * inputs[k];
+			}
+		}
+		
+		@Override
+		void sigmoid(double values[], int offset, int length){
+			// (see documentation for details)
+			for(int k = offset; k < offset + length; k++){
+				values[k] = 1 / (1 + Math.exp(-values[k]));
+			}
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package de.ef.slowwave;
+
+/**
+ * {@code SlowWaveMatrix} is a helper class for
+ * {@link de.ef.slowwave.SlowWave SlowWave} and {@link de.ef.slowwave.SlowWaveFloat SlowWaveFloat}
+ * with the blocked matrix-matrix kernels used to process a whole batch of samples at once.
+ * <p>
+ * All matrices are flat row-major arrays. Activations and errors of a batch
+ * have one row per sample, weight matrices have one row per neuron with the
+ * bias weight as last column.
+ * </p>
+ * 
+ * @author Erik Fritzsche
+ * @version 1.1
+ * @since 2.0
+ */
+final class SlowWaveMatrix{
+	
+	/**
+	 * Number of samples of a batch processed together, so that their
+	 * activations stay in cache while the weight matrix is streamed.
+	 */
+	final static int SAMPLE_BLOCK = 16;
+	
+	
+	
+	private SlowWaveMatrix(){}
+	
+	
+	
+	// outputs = inputs * weights^T + bias, with count rows of inputCount inputs and outputCount outputs,
+	// every weight row is read once for four samples
+	static void multiplyTransposed(
+			double inputs[], int count, int inputCount,
+			double weights[], int outputCount, double outputs[]){
+		int rowLength = inputCount + 1;
+		for(int block = 0; block < count; block += SAMPLE_BLOCK){
+			int blockEnd = Math.min(block + SAMPLE_BLOCK, count);
+			for(int j = 0, row = 0; j < outputCount; j++, row += rowLength){
+				double bias = weights[row + inputCount];
+				int b = block;
+				for(; b + 3 < blockEnd; b += 4){
+					int i0 = b * inputCount, i1 = i0 + inputCount, i2 = i1 + inputCount, i3 = i2 + inputCount;
+					double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+					for(int k = 0; k < inputCount; k++){
+						double weight = weights[row + k];
+						sum0 += inputs[i0 + k] * weight;
+						sum1 += inputs[i1 + k] * weight;
+						sum2 += inputs[i2 + k] * weight;
+						sum3 += inputs[i3 + k] * weight;
+					}
+					outputs[b * outputCount + j] = sum0 + bias;
+					outputs[(b + 1) * outputCount + j] = sum1 + bias;
+					outputs[(b + 2) * outputCount + j] = sum2 + bias;
+					outputs[(b + 3) * outputCount + j] = sum3 + bias;
+				}
+				for(; b < blockEnd; b++){
+					int i0 = b * inputCount;
+					double sum = 0;
+					for(int k = 0; k < inputCount; k++){
+						sum += inputs[i0 + k] * weights[row + k];
+					}
+					outputs[b * outputCount + j] = sum + bias;
+				}
+			}
+		}
+	}
+	
+	// float version of multiplyTransposed for SlowWaveFloat
+	static void multiplyTransposed(
+			float inputs[], int count, int inputCount,
+			float weights[], int outputCount, float outputs[]){
+		int rowLength = inputCount + 1;
+		for(int block = 0; block < count; block += SAMPLE_BLOCK){
+			int blockEnd = Math.min(block + SAMPLE_BLOCK, count);
+			for(int j = 0, row = 0; j < outputCount; j++, row += rowLength){
+				float bias = weights[row + inputCount];
+				int b = block;
+				for(; b + 3 < blockEnd; b += 4){
+					int i0 = b * inputCount, i1 = i0 + inputCount, i2 = i1 + inputCount, i3 = i2 + inputCount;
+					float sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+					for(int k = 0; k < inputCount; k++){
+						float weight = weights[row + k];
+						sum0 += inputs[i0 + k] * weight;
+						sum1 += inputs[i1 + k] * weight;
+						sum2 += inputs[i2 + k] * weight;
+						sum3 += inputs[i3 + k] * weight;
+					}
+					outputs[b * outputCount + j] = sum0 + bias;
+					outputs[(b + 1) * outputCount + j] = sum1 + bias;
+					outputs[(b + 2) * outputCount + j] = sum2 + bias;
+					outputs[(b + 3) * outputCount + j] = sum3 + bias;
+				}
+				for(; b < blockEnd; b++){
+					int i0 = b * inputCount;
+					float sum = 0;
+					for(int k = 0; k < inputCount; k++){
+						sum += inputs[i0 + k] * weights[row + k];
+					}
+					outputs[b * outputCount + j] = sum + bias;
+				}
+			}
+		}
+	}
+	
+	// previous += errors * weights (without bias column), with count rows of
+	// errorCount errors and previousCount previous errors
+	static void multiply(
+			double errors[], int count, int errorCount,
+			double weights[], int previousCount, double previous[]){
+		int rowLength = previousCount + 1;
+		int b = 0;
+		for(; b + 3 < count; b += 4){
+			int p0 = b * previousCount, p1 = p0 + previousCount, p2 = p1 + previousCount, p3 = p2 + previousCount;
+			for(int j = 0, row = 0; j < errorCount; j++, row += rowLength){
+				double error0 = errors[b * errorCount + j], error1 = errors[(b + 1) * errorCount + j],
+					error2 = errors[(b + 2) * errorCount + j], error3 = errors[(b + 3) * errorCount + j];
+				for(int k = 0; k < previousCount; k++){
+					double weight = weights[row + k];
+					previous[p0 + k] += error0 * weight;
+					previous[p1 + k] += error1 * weight;
+					previous[p2 + k] += error2 * weight;
+					previous[p3 + k] += error3 * weight;
+				}
+			}
+		}
+		for(; b < count; b++){
+			int p0 = b * previousCount;
+			for(int j = 0, row = 0; j < errorCount; j++, row += rowLength){
+				double error = errors[b * errorCount + j];
+				for(int k = 0; k < previousCount; k++){
+					previous[p0 + k] += error * weights[row + k];
+				}
+			}
+		}
+	}
+	
+	// gradients += errors^T * inputs (plus bias column), with count rows of
+	// errorCount errors and inputCount inputs
+	static void accumulate(
+			double errors[], int count, int errorCount,
+			double inputs[], int inputCount, double gradients[]){
+		int rowLength = inputCount + 1;
+		for(int j = 0, row = 0; j < errorCount; j++, row += rowLength){
+			int b = 0;
+			for(; b + 3 < count; b += 4){
+				int i0 = b * inputCount, i1 = i0 + inputCount, i2 = i1 + inputCount, i3 = i2 + inputCount;
+				double error0 = errors[b * errorCount + j], error1 = errors[(b + 1) * errorCount + j],
+					error2 = errors[(b + 2) * errorCount + j], error3 = errors[(b + 3) * errorCount + j];
+				for(int k = 0; k < inputCount; k++){
+					gradients[row + k] +=
+						error0 * inputs[i0 + k] + error1 * inputs[i1 + k]
+						+ error2 * inputs[i2 + k] + error3 * inputs[i3 + k];
+				}
+				gradients[row + inputCount] += error0 + error1 + error2 + error3;
+			}
+			for(; b < count; b++){
+				int i0 = b * inputCount;
+				double error = errors[b * errorCount + j];
+				for(int k = 0; k < inputCount; k++){
+					gradients[row + k] += error * inputs[i0 + k];
+				}
+				gradients[row + inputCount] += error;
+			}
+		}
+	}
+}
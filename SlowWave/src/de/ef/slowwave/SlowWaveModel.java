@@ -0,0 +1,52 @@
+package de.ef.slowwave;
+
+import de.ef.neuralnetworks.InferenceModel;
+
+/**
+ * {@code SlowWaveModel} is the read-only snapshot of a {@link de.ef.slowwave.SlowWave SlowWave}
+ * created by {@link de.ef.slowwave.SlowWave#freeze() freeze}.
+ * <p>
+ * The weights are copied once and never changed afterwards, so all threads
+ * share them without any locking. Every thread calculates with its own outputs,
+ * which are kept as long as the model is reachable.
+ * </p>
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 2.0
+ */
+public final class SlowWaveModel
+	implements InferenceModel<double[], double[]>{
+	
+	/**
+	 * Make always same as @version in JavaDoc in format xxx.yyy.zzz
+	 */
+	private final static long serialVersionUID = 001_000_000L;
+	
+	
+	
+	// copy of the network, only used to calculate
+	private final ConcurrentSlowWave network;
+	
+	
+	SlowWaveModel(SlowWave network){
+		this.network = new ConcurrentSlowWave();
+		this.network.copy(network);
+	}
+	
+	
+	@Override
+	public double[] calculate(double inputs[]){
+		return this.network.calculate(inputs);
+	}
+	
+	@Override
+	public double[] calculate(double inputs[], double outputs[]){
+		return this.network.calculate(inputs, outputs);
+	}
+	
+	@Override
+	public void calculateBatch(double inputs[][], double outputs[][]){
+		this.network.calculateBatch(inputs, outputs);
+	}
+}
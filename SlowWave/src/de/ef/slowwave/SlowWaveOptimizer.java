@@ -0,0 +1,142 @@
+package de.ef.slowwave;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * {@code SlowWaveOptimizer} is a helper class for {@link de.ef.slowwave.SlowWave SlowWave}
+ * which applies gradients with the selected {@link de.ef.slowwave.Optimizer Optimizer}.
+ * <p>
+ * The state of each weight is stored in flat arrays with the same layout as the weight
+ * matrices, {@code first} holds the velocity or first moment and {@code second}
+ * the average of the squared gradients.
+ * </p>
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 2.0
+ */
+final class SlowWaveOptimizer{
+	
+	final static double DEFAULT_MOMENTUM = 0.9, DEFAULT_RMSPROP_DECAY = 0.9,
+		DEFAULT_ADAM_DECAY = 0.999, DEFAULT_EPSILON = 1e-8;
+	
+	// the kernel is only used for plain gradient descent
+	private final static SlowWaveKernel KERNEL = SlowWaveKernel.INSTANCE;
+	
+	
+	
+	final Optimizer type;
+	final double momentum, decay, epsilon;
+	// true if the state is serialized
+	final boolean stateSerialized;
+	
+	// state of each weight, null if not needed by the optimizer
+	double first[][], second[][];
+	// number of applied gradients
+	long steps;
+	
+	
+	SlowWaveOptimizer(
+			Optimizer type, double momentum, double decay, double epsilon,
+			boolean stateSerialized, double weights[][]){
+		this.type = type;
+		this.momentum = momentum;
+		this.decay = decay;
+		this.epsilon = epsilon;
+		this.stateSerialized = stateSerialized;
+		
+		if(type != Optimizer.SGD && type != Optimizer.RMSPROP)
+			this.first = allocate(weights);
+		if(type == Optimizer.RMSPROP || type == Optimizer.ADAM)
+			this.second = allocate(weights);
+	}
+	
+	// creates the optimizer selected by the properties
+	static SlowWaveOptimizer of(Map<String, Object> properties, double weights[][]){
+		if(properties == null) properties = Collections.emptyMap();
+		
+		Optimizer type = Optimizer.of(properties.get("optimizer"), Optimizer.SGD);
+		double momentum = (Double)properties.getOrDefault("optimizer.momentum", DEFAULT_MOMENTUM);
+		double decay = (Double)properties.getOrDefault(
+			"optimizer.decay", type == Optimizer.ADAM ? DEFAULT_ADAM_DECAY : DEFAULT_RMSPROP_DECAY
+		);
+		double epsilon = (Double)properties.getOrDefault("optimizer.epsilon", DEFAULT_EPSILON);
+		boolean stateSerialized = (Boolean)properties.getOrDefault("optimizer.state.serialized", false);
+		
+		if(momentum < 0 || momentum >= 1)
+			throw new IllegalArgumentException("Momentum not possible: " + momentum);
+		if(decay < 0 || decay >= 1)
+			throw new IllegalArgumentException("Decay not possible: " + decay);
+		if(epsilon <= 0)
+			throw new IllegalArgumentException("Epsilon not possible: " + epsilon);
+		
+		return new SlowWaveOptimizer(type, momentum, decay, epsilon, stateSerialized, weights);
+	}
+	
+	// creates an optimizer with the same type and parameters but a fresh state for the weights
+	SlowWaveOptimizer fresh(double weights[][]){
+		return new SlowWaveOptimizer(
+			this.type, this.momentum, this.decay, this.epsilon, this.stateSerialized, weights
+		);
+	}
+	
+	private static double[][] allocate(double weights[][]){
+		double state[][] = new double[weights.length][];
+		for(int i = 0; i < weights.length; i++){
+			state[i] = new double[weights[i].length];
+		}
+		return state;
+	}
+	
+	
+	// changes the weights by the gradients summed over count samples
+	void apply(double weights[][], double gradients[][], double learningRate, int count){
+		double scale = 1.0 / count;
+		this.steps++;
+		
+		for(int i = 1; i < weights.length; i++){
+			double layer[] = weights[i], gradient[] = gradients[i];
+			switch(this.type){
+				case SGD:
+					KERNEL.axpy(learningRate / count, gradient, 0, layer, 0, layer.length);
+					break;
+				case MOMENTUM:
+				case NESTEROV:{
+					double velocity[] = this.first[i], momentum = this.momentum;
+					boolean nesterov = (this.type == Optimizer.NESTEROV);
+					for(int j = 0; j < layer.length; j++){
+						double step = learningRate * scale * gradient[j];
+						double current = velocity[j] = momentum * velocity[j] + step;
+						layer[j] += nesterov == true ? momentum * current + step : current;
+					}
+					break;
+				}
+				case RMSPROP:{
+					double squares[] = this.second[i], decay = this.decay;
+					for(int j = 0; j < layer.length; j++){
+						double value = scale * gradient[j];
+						double square = squares[j] = decay * squares[j] + (1 - decay) * value * value;
+						layer[j] += learningRate * value / (Math.sqrt(square) + this.epsilon);
+					}
+					break;
+				}
+				case ADAM:{
+					double moments[] = this.first[i], squares[] = this.second[i];
+					double momentum = this.momentum, decay = this.decay;
+					// bias correction of both averages, which start at zero
+					double firstCorrection = 1 / (1 - Math.pow(momentum, this.steps));
+					double secondCorrection = 1 / (1 - Math.pow(decay, this.steps));
+					for(int j = 0; j < layer.length; j++){
+						double value = scale * gradient[j];
+						double moment = moments[j] = momentum * moments[j] + (1 - momentum) * value;
+						double square = squares[j] = decay * squares[j] + (1 - decay) * value * value;
+						layer[j] +=
+							learningRate * moment * firstCorrection / (Math.sqrt(square * secondCorrection) + this.epsilon);
+					}
+					break;
+				}
+			}
+		}
+	}
+}
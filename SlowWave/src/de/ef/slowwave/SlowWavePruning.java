@@ -0,0 +1,134 @@
+package de.ef.slowwave;
+
+import java.util.Arrays;
+
+/**
+ * {@code SlowWavePruning} removes the weights of a trained {@link de.ef.slowwave.SlowWave SlowWave}
+ * with the smallest magnitude, so it can be calculated as a sparse network
+ * by {@link de.ef.slowwave.SlowWaveSparse SlowWaveSparse}.
+ * <p>
+ * Pruned weights are set to zero and stay zero while the network is trained afterwards,
+ * so the remaining weights can be fine-tuned with
+ * {@link de.ef.neuralnetworks.util.NeuralNetworkTraining NeuralNetworkTraining} to make
+ * up for the lost accuracy. Which weights are pruned is not serialized and is reset by
+ * {@link de.ef.slowwave.SlowWave#init init}. Bias weights are never pruned.
+ * </p>
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 2.0
+ */
+public final class SlowWavePruning{
+	
+	private SlowWavePruning(){}
+	
+	
+	
+	/**
+	 * Prunes all weights with a magnitude below the threshold.
+	 * 
+	 * @param network an initialized network
+	 * @param threshold the smallest magnitude kept
+	 * 
+	 * @return the number of pruned weights, including weights pruned before
+	 * 
+	 * @throws IllegalArgumentException if the network is not initialized or the threshold is negative
+	 */
+	public static int prune(SlowWave network, double threshold){
+		if(network.sizes == null)
+			throw new IllegalArgumentException("Uninitialized network not possible: " + network);
+		if(threshold >= 0 == false)
+			throw new IllegalArgumentException("Threshold not possible: " + threshold);
+		
+		if(network.pruned == null){
+			network.pruned = new boolean[network.weights.length][];
+			for(int i = 0; i < network.weights.length; i++){
+				network.pruned[i] = new boolean[network.weights[i].length];
+			}
+		}
+		
+		int count = 0;
+		for(int i = 1; i < network.sizes.length; i++){
+			double weights[] = network.weights[i];
+			boolean pruned[] = network.pruned[i];
+			int inputCount = network.sizes[i - 1];
+			for(int row = 0; row < weights.length; row += inputCount + 1){
+				// skip the bias weight at the end of the row
+				for(int k = row; k < row + inputCount; k++){
+					if(Math.abs(weights[k]) < threshold)
+						pruned[k] = true;
+					if(pruned[k] == true){
+						weights[k] = 0;
+						count++;
+					}
+				}
+			}
+		}
+		// copies and caches of the network have to see the pruned weights
+		network.version++;
+		return count;
+	}
+	
+	/**
+	 * Prunes the weights with the smallest magnitude of the whole network,
+	 * until the given share of all weights (bias weights excluded) is pruned.
+	 * 
+	 * @param network an initialized network
+	 * @param sparsity the share of pruned weights from {@code 0} to {@code 1}
+	 * 
+	 * @return the number of pruned weights
+	 * 
+	 * @throws IllegalArgumentException if the network is not initialized or the sparsity is not possible
+	 */
+	public static int pruneToSparsity(SlowWave network, double sparsity){
+		if(network.sizes == null)
+			throw new IllegalArgumentException("Uninitialized network not possible: " + network);
+		if(sparsity >= 0 == false || sparsity > 1)
+			throw new IllegalArgumentException("Sparsity not possible: " + sparsity);
+		
+		double magnitudes[] = magnitudes(network);
+		int count = (int)(magnitudes.length * sparsity);
+		if(count == 0)
+			return prune(network, 0);
+		Arrays.sort(magnitudes);
+		// everything below the first kept magnitude, equal magnitudes are kept
+		return prune(network, count == magnitudes.length ? Double.POSITIVE_INFINITY : magnitudes[count]);
+	}
+	
+	/**
+	 * Returns the share of weights of the network which are zero, bias weights excluded.
+	 * 
+	 * @param network an initialized network
+	 * 
+	 * @return the sparsity of the network from {@code 0} to {@code 1}
+	 */
+	public static double sparsity(SlowWave network){
+		double magnitudes[] = magnitudes(network);
+		int count = 0;
+		for(double magnitude : magnitudes){
+			if(magnitude == 0)
+				count++;
+		}
+		return magnitudes.length == 0 ? 0 : (double)count / magnitudes.length;
+	}
+	
+	// returns the magnitude of every weight except the bias weights
+	private static double[] magnitudes(SlowWave network){
+		int total = 0;
+		for(int i = 1; i < network.sizes.length; i++){
+			total += network.sizes[i] * network.sizes[i - 1];
+		}
+		double magnitudes[] = new double[total];
+		int index = 0;
+		for(int i = 1; i < network.sizes.length; i++){
+			double weights[] = network.weights[i];
+			int inputCount = network.sizes[i - 1];
+			for(int row = 0; row < weights.length; row += inputCount + 1){
+				for(int k = row; k < row + inputCount; k++){
+					magnitudes[index++] = Math.abs(weights[k]);
+				}
+			}
+		}
+		return magnitudes;
+	}
+}
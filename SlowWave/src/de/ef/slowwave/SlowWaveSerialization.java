@@ -6,16 +6,29 @@ import java.io.ObjectOutputStream;
 
 /**
  * {@code SlowWaveSerialization} is a helper class for
- * {@link de.ef.slowwave.SlowWave SlowWave} to serialize
- * and deserialize it.
+ * {@link de.ef.slowwave.SlowWave SlowWave} and {@link de.ef.slowwave.SlowWaveFloat SlowWaveFloat}
+ * to serialize and deserialize them.
+ * <p>
+ * Both use the same format, the double precision flag of the header tells if the weights
+ * are stored as doubles or as floats. Each of them reads both kinds of weights.
+ * </p>
+ * <p>
+ * The activation property holds the ordinal of the activation of each layer except
+ * the input layer, without it every layer uses the sigmoid function.
+ * The optimizer property is only written for optimizers other than plain gradient descent
+ * and only contains the state of each weight if it should be serialized.
+ * </p>
  * 
  * @author Erik Fritzsche
- * @version 1.0
+ * @version 1.3
  * @since 1.0
  */
 class SlowWaveSerialization{
 	
-	final static byte LEARNING_RATE_PROPERTY = 0;
+	final static byte LEARNING_RATE_PROPERTY = 0, ACTIVATIONS_PROPERTY = 1, OPTIMIZER_PROPERTY = 2;
+	
+	// header bit flags
+	final static int DOUBLE_PRECISION = 0b0001, BIAS_NEURON = 0b0010, EXTRA_PROPERTIES = 0b0100;
 	
 	
 	
@@ -24,52 +37,157 @@ class SlowWaveSerialization{
 	
 	
 	static void write(SlowWave network, ObjectOutputStream output) throws IOException{
+		writeHeader(
+			output, DOUBLE_PRECISION, network.learningRate, network.activations, network.optimizer, network.sizes
+		);
+		
+		// weight matrices are stored row by row, which is the same order
+		// as writing the weights (plus one bias weight) of each neuron
+		for(int layer = 1; layer < network.sizes.length; layer++){
+			double weights[] = network.weights[layer];
+			for(int weight = 0; weight < weights.length; weight++){
+				output.writeDouble(weights[weight]); // write each weight as double
+			}
+		}
+	}
+	
+	static void write(SlowWaveFloat network, ObjectOutputStream output) throws IOException{
+		writeHeader(output, 0, network.learningRate, network.activations, null, network.sizes);
+		
+		// same order as the double weights
+		for(int layer = 1; layer < network.sizes.length; layer++){
+			float weights[] = network.weights[layer];
+			for(int weight = 0; weight < weights.length; weight++){
+				output.writeFloat(weights[weight]); // write each weight as float
+			}
+		}
+	}
+	
+	private static void writeHeader(
+			ObjectOutputStream output, int precision, double learningRate,
+			Activation activations[], SlowWaveOptimizer optimizer, int sizes[]) throws IOException{
 		// write header byte with bit flags 0b0001 for double precision, 0b0010 for bias neuron and 0b0100 for extra properties
-		output.writeByte(0b0111);
+		output.writeByte(precision | BIAS_NEURON | EXTRA_PROPERTIES);
 		
 		// write properties
+		boolean writeOptimizer = optimizer != null && optimizer.type != Optimizer.SGD;
+		
 		// property count as short
-		output.writeShort(1);
+		output.writeShort(writeOptimizer == true ? 3 : 2);
 		// learning rate property
 		output.writeByte(LEARNING_RATE_PROPERTY);
-		output.writeByte(Double.BYTES);
-		output.writeDouble(network.learningRate);
+		writeSize(output, Double.BYTES);
+		output.writeDouble(learningRate);
+		// activations property, one byte per layer except input
+		output.writeByte(ACTIVATIONS_PROPERTY);
+		writeSize(output, activations.length - 1);
+		for(int layer = 1; layer < activations.length; layer++){
+			output.writeByte(activations[layer].ordinal());
+		}
+		// optimizer property with type, parameters and optional state
+		if(writeOptimizer == true){
+			int stateSize = 0;
+			if(optimizer.stateSerialized == true){
+				// steps, state length and both states
+				stateSize = Long.BYTES + Integer.BYTES;
+				for(int layer = 1; layer < sizes.length; layer++){
+					stateSize += 2 * Double.BYTES * sizes[layer] * (sizes[layer - 1] + 1);
+				}
+			}
+			output.writeByte(OPTIMIZER_PROPERTY);
+			writeSize(output, 2 + 3 * Double.BYTES + stateSize);
+			output.writeByte(optimizer.type.ordinal());
+			output.writeDouble(optimizer.momentum);
+			output.writeDouble(optimizer.decay);
+			output.writeDouble(optimizer.epsilon);
+			output.writeBoolean(optimizer.stateSerialized);
+			if(optimizer.stateSerialized == true){
+				output.writeLong(optimizer.steps);
+				output.writeInt((stateSize - Long.BYTES - Integer.BYTES) / (2 * Double.BYTES));
+				writeState(output, optimizer.first, sizes);
+				writeState(output, optimizer.second, sizes);
+			}
+		}
 		
-		SlowWave.Neuron layers[][] = network.layers;
+		output.writeInt(sizes.length); // write layer count as integer
+		for(int layer = 0; layer < sizes.length; layer++){
+			output.writeInt(sizes[layer]); // write count of neurons in each layer as integer
+		}
+	}
+	
+	
+	static void read(SlowWave network, ObjectInputStream input) throws IOException{
+		Header header = readHeader(input);
+		int sizes[] = header.sizes;
 		
-		output.writeInt(layers.length); // write layer count as integer
-		for(int layer = 0; layer < layers.length; layer++){
-			output.writeInt(layers[layer].length); // write count of neurons in each layer as integer
+		double weights[][] = new double[sizes.length][];
+		weights[0] = new double[0];
+		for(int layer = 1; layer < sizes.length; layer++){
+			// plus one to last neuron count for bias neuron
+			weights[layer] = new double[sizes[layer] * (sizes[layer - 1] + 1)];
+			for(int weight = 0; weight < weights[layer].length; weight++){
+				// read each weight
+				weights[layer][weight] = header.doublePrecision == true ? input.readDouble() : input.readFloat();
+			}
 		}
 		
-		int neuronCount, lastNeuronCount = -1;
-		for(int layer = 0; layer < layers.length; layer++){
-			neuronCount = layers[layer].length;
-			for(int neuron = 0; neuron < neuronCount; neuron++){
-				// plus one to lastNeuronCount for bias neuron
-				int weightCount = (lastNeuronCount != -1 ? lastNeuronCount + 1 : 0);
-				for(int weight = 0; weight < weightCount; weight++){
-					output.writeDouble(layers[layer][neuron].getWeight(weight)); // write each weight as double
-				}
+		network.learningRate = header.learningRate;
+		network.activations = header.activations;
+		network.sizes = sizes;
+		network.weights = weights;
+		// plain gradient descent if no optimizer is stored
+		if(header.optimizer == null)
+			network.optimizer = SlowWaveOptimizer.of(null, weights);
+		else{
+			network.optimizer = new SlowWaveOptimizer(
+				header.optimizer, header.momentum, header.decay, header.epsilon, header.optimizerState != null, weights
+			);
+			if(header.optimizerState != null){
+				network.optimizer.steps = header.steps;
+				readState(header.optimizerState, 0, network.optimizer.first);
+				readState(header.optimizerState, header.optimizerState.length / 2, network.optimizer.second);
 			}
-			lastNeuronCount = neuronCount;
 		}
+		network.allocate();
 	}
 	
+	static void read(SlowWaveFloat network, ObjectInputStream input) throws IOException{
+		Header header = readHeader(input);
+		int sizes[] = header.sizes;
+		
+		float weights[][] = new float[sizes.length][];
+		weights[0] = new float[0];
+		for(int layer = 1; layer < sizes.length; layer++){
+			// plus one to last neuron count for bias neuron
+			weights[layer] = new float[sizes[layer] * (sizes[layer - 1] + 1)];
+			for(int weight = 0; weight < weights[layer].length; weight++){
+				// read each weight
+				weights[layer][weight] = header.doublePrecision == true ? (float)input.readDouble() : input.readFloat();
+			}
+		}
+		
+		network.learningRate = (float)header.learningRate;
+		network.activations = header.activations;
+		network.sizes = sizes;
+		network.weights = weights;
+		network.allocate();
+	}
 	
-	static void read(SlowWave network, ObjectInputStream input) throws IOException{
+	private static Header readHeader(ObjectInputStream input) throws IOException{
+		Header result = new Header();
 		byte header = input.readByte(); // read header byte
 		// extract bit flags (double precision and bias neuron)
-		// if one of the flags is not set correctly throw exception
-		if((header & 0b0001) != 0b0001 || (header & 0b0010) != 0b0010){
+		// if the bias flag is not set correctly throw exception
+		if((header & BIAS_NEURON) != BIAS_NEURON){
 			throw new IOException("Incorrect serialization header: " + header);
 		}
+		result.doublePrecision = (header & DOUBLE_PRECISION) == DOUBLE_PRECISION;
 		
 		// keep track of all set properties
 		boolean learningRateSet = false;
 		
 		// read properties if present
-		if((header & 0b0100) == 0b0100){
+		if((header & EXTRA_PROPERTIES) == EXTRA_PROPERTIES){
 			int count = input.readShort();
 			
 			for(int i = 0; i < count; i++){
@@ -77,7 +195,7 @@ class SlowWaveSerialization{
 				int size = 0, next, currentBit = 0;
 				do{
 					next = (input.readByte() & 0xFF);
-					size |= next << currentBit;
+					size |= (next & 0b0111_1111) << currentBit;
 					currentBit += 7;
 				}while((next & 0b1000_0000) == 0b1000_0000);
 				
@@ -85,7 +203,34 @@ class SlowWaveSerialization{
 					case LEARNING_RATE_PROPERTY:
 						if(size != Double.BYTES)
 							throw new IOException("Size of property does not match double size: " + size);
-						learningRateSet = true; network.learningRate = input.readDouble(); break;
+						learningRateSet = true; result.learningRate = input.readDouble(); break;
+					case ACTIVATIONS_PROPERTY:
+						Activation values[] = Activation.values();
+						result.activations = new Activation[size + 1];
+						for(int layer = 1; layer < result.activations.length; layer++){
+							int ordinal = input.readByte() & 0xFF;
+							if(ordinal >= values.length)
+								throw new IOException("Unknown activation: " + ordinal);
+							result.activations[layer] = values[ordinal];
+						}
+						break;
+					case OPTIMIZER_PROPERTY:
+						int ordinal = input.readByte() & 0xFF;
+						if(ordinal >= Optimizer.values().length)
+							throw new IOException("Unknown optimizer: " + ordinal);
+						result.optimizer = Optimizer.values()[ordinal];
+						result.momentum = input.readDouble();
+						result.decay = input.readDouble();
+						result.epsilon = input.readDouble();
+						if(input.readBoolean() == true){
+							result.steps = input.readLong();
+							// both states one after another
+							result.optimizerState = new double[2 * input.readInt()];
+							for(int j = 0; j < result.optimizerState.length; j++){
+								result.optimizerState[j] = input.readDouble();
+							}
+						}
+						break;
 					default: // just read bytes and throw property away
 						for(int j = 0; j < size; j++) input.readByte();
 				}
@@ -93,29 +238,77 @@ class SlowWaveSerialization{
 		}
 		// set all uninitialized properties
 		if(learningRateSet == false)
-			network.learningRate = SlowWave.DEFAULT_LEARNING_RATE;
+			result.learningRate = SlowWave.DEFAULT_LEARNING_RATE;
 		
 		
-		SlowWave.Neuron layers[][] = new SlowWave.Neuron[input.readInt()][]; // read layer count
+		result.sizes = new int[input.readInt()]; // read layer count
 		
-		for(int layer = 0; layer < layers.length; layer++){
-			layers[layer] = new SlowWave.Neuron[input.readInt()]; // read each neuron count
+		for(int layer = 0; layer < result.sizes.length; layer++){
+			result.sizes[layer] = input.readInt(); // read each neuron count
 		}
 		
-		network.layers = layers;
+		if(result.activations == null){
+			// every layer uses the sigmoid function
+			result.activations = new Activation[result.sizes.length];
+			for(int layer = 1; layer < result.sizes.length; layer++){
+				result.activations[layer] = Activation.SIGMOID;
+			}
+		}
+		else if(result.activations.length != result.sizes.length)
+			throw new IOException("Activation count does not match layer count: " + (result.activations.length - 1));
 		
-		int lastNeuronCount = -1;
-		for(int layer = 0; layer < layers.length; layer++){
-			for(int neuron = 0; neuron < layers[layer].length; neuron++){
-				// plus one to lastNeuronCount for bias neuron
-				int weightCount = (lastNeuronCount != -1 ? lastNeuronCount + 1 : 0);
-				// create Neuron with enclosing SlowWave instance
-				layers[layer][neuron] = network.new Neuron(new double[weightCount]);
-				for(int weight = 0; weight < weightCount; weight++){
-					layers[layer][neuron].setWeight(weight, input.readDouble()); // read each weight
-				}
+		if(result.optimizerState != null){
+			int weightCount = 0;
+			for(int layer = 1; layer < result.sizes.length; layer++){
+				weightCount += result.sizes[layer] * (result.sizes[layer - 1] + 1);
+			}
+			if(result.optimizerState.length != 2 * weightCount)
+				throw new IOException("Optimizer state does not match weight count: " + result.optimizerState.length / 2);
+		}
+		return result;
+	}
+	
+	// writes the state of each weight of all layers except input, a missing state is written as zeros
+	private static void writeState(ObjectOutputStream output, double state[][], int sizes[]) throws IOException{
+		for(int layer = 1; layer < sizes.length; layer++){
+			int count = sizes[layer] * (sizes[layer - 1] + 1);
+			for(int weight = 0; weight < count; weight++){
+				output.writeDouble(state == null ? 0 : state[layer][weight]);
 			}
-			lastNeuronCount = layers[layer].length;
 		}
 	}
+	
+	// copies the flat state starting at offset into the state of each layer, a missing state is skipped
+	private static void readState(double source[], int offset, double state[][]){
+		if(state == null)
+			return;
+		for(int layer = 1; layer < state.length; layer++){
+			System.arraycopy(source, offset, state[layer], 0, state[layer].length);
+			offset += state[layer].length;
+		}
+	}
+	
+	// writes the size of a property with seven bits per byte, the highest bit marks a following byte
+	private static void writeSize(ObjectOutputStream output, int size) throws IOException{
+		while(size >= 0b1000_0000){
+			output.writeByte((size & 0b0111_1111) | 0b1000_0000);
+			size >>>= 7;
+		}
+		output.writeByte(size);
+	}
+	
+	
+	
+	// everything in front of the weights
+	private final static class Header{
+		
+		private boolean doublePrecision;
+		private double learningRate;
+		private Activation activations[];
+		private Optimizer optimizer;
+		private double momentum, decay, epsilon;
+		private long steps;
+		private double optimizerState[];
+		private int sizes[];
+	}
 }
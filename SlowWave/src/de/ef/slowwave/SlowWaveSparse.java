@@ -0,0 +1,164 @@
+package de.ef.slowwave;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
+import de.ef.neuralnetworks.InferenceModel;
+
+/**
+ * {@code SlowWaveSparse} is an inference-only version of {@link de.ef.slowwave.SlowWave SlowWave}
+ * which only stores and calculates the weights that are not zero.
+ * <p>
+ * The weights of each layer are stored in compressed sparse row form: the weights of all
+ * neurons one after another with the index of their input and the start of each neuron,
+ * the bias weights are stored separately. It is created from a network pruned by
+ * {@link de.ef.slowwave.SlowWavePruning SlowWavePruning} and gets faster the more weights
+ * are pruned, at a sparsity of {@code 0.9} it only does a tenth of the multiplications.
+ * For dense networks it is slower than the {@code SlowWave} it was created from.
+ * </p>
+ * <p>
+ * A {@code SlowWaveSparse} is thread-safe, every thread calculates with its own outputs.
+ * </p>
+ * 
+ * @author Erik Fritzsche
+ * @version 1.0
+ * @since 2.0
+ */
+public class SlowWaveSparse
+	implements InferenceModel<double[], double[]>{
+	
+	/**
+	 * Make always same as @version in JavaDoc in format xxx.yyy.zzz
+	 */
+	private final static long serialVersionUID = 001_000_000L;
+	
+	
+	
+	private final int sizes[];
+	// index of the first weight of each neuron plus the end of the last neuron
+	private final int starts[][];
+	// input index and value of every weight that is not zero
+	private final int columns[][];
+	private final double values[][];
+	private final double biases[][];
+	private final Activation activations[];
+	
+	// outputs of each thread, not serialized
+	private transient ThreadLocal<double[][]> outputs;
+	
+	
+	/**
+	 * Creates a new {@code SlowWaveSparse} with the layers and all weights of the given network which are not zero.
+	 * 
+	 * @param network an initialized network
+	 * 
+	 * @throws IllegalArgumentException if the network is not initialized
+	 */
+	public SlowWaveSparse(SlowWave network){
+		if(network.sizes == null)
+			throw new IllegalArgumentException("Uninitialized network not possible: " + network);
+		
+		this.sizes = network.sizes.clone();
+		this.activations = network.activations.clone();
+		this.starts = new int[this.sizes.length][];
+		this.columns = new int[this.sizes.length][];
+		this.values = new double[this.sizes.length][];
+		this.biases = new double[this.sizes.length][];
+		// input layer has no weights
+		this.starts[0] = this.columns[0] = new int[0];
+		this.values[0] = this.biases[0] = new double[0];
+		for(int i = 1; i < this.sizes.length; i++){
+			double layer[] = network.weights[i];
+			int inputCount = this.sizes[i - 1];
+			
+			int count = 0;
+			for(int row = 0; row < layer.length; row += inputCount + 1){
+				for(int k = 0; k < inputCount; k++){
+					if(layer[row + k] != 0)
+						count++;
+				}
+			}
+			
+			int starts[] = this.starts[i] = new int[this.sizes[i] + 1];
+			int columns[] = this.columns[i] = new int[count];
+			double values[] = this.values[i] = new double[count];
+			double biases[] = this.biases[i] = new double[this.sizes[i]];
+			int index = 0;
+			for(int j = 0, row = 0; j < this.sizes[i]; j++, row += inputCount + 1){
+				starts[j] = index;
+				for(int k = 0; k < inputCount; k++){
+					if(layer[row + k] != 0){
+						columns[index] = k;
+						values[index++] = layer[row + k];
+					}
+				}
+				biases[j] = layer[row + inputCount];
+			}
+			starts[this.sizes[i]] = index;
+		}
+		
+		this.allocate();
+	}
+	
+	// creates the outputs of each thread
+	private void allocate(){
+		int sizes[] = this.sizes;
+		this.outputs = ThreadLocal.withInitial(() -> {
+			double outputs[][] = new double[sizes.length][];
+			for(int i = 0; i < sizes.length; i++){
+				outputs[i] = new double[sizes[i]];
+			}
+			return outputs;
+		});
+	}
+	
+	
+	@Override
+	public double[] calculate(double inputs[]){
+		return this.calculate(inputs, new double[this.sizes[this.sizes.length - 1]]);
+	}
+	
+	@Override
+	public double[] calculate(double inputs[], double outputs[]){
+		double current[][] = this.outputs.get();
+		double in[] = inputs;
+		// run through each layer (except input)
+		for(int i = 1; i < this.sizes.length; i++){
+			int starts[] = this.starts[i], columns[] = this.columns[i];
+			double values[] = this.values[i], biases[] = this.biases[i], out[] = current[i];
+			// run through each neuron (row), only its weights which are not zero
+			for(int j = 0; j < out.length; j++){
+				double sum = biases[j];
+				for(int p = starts[j], end = starts[j + 1]; p < end; p++){
+					sum += values[p] * in[columns[p]];
+				}
+				out[j] = sum;
+			}
+			this.activations[i].apply(out, 0, out.length);
+			in = out;
+		}
+		System.arraycopy(in, 0, outputs, 0, in.length);
+		return outputs;
+	}
+	
+	/**
+	 * Returns the number of stored weights, which is the number of weights
+	 * that are not zero plus the bias weights.
+	 * 
+	 * @return the number of stored weights
+	 */
+	public int weightCount(){
+		int count = 0;
+		for(int i = 1; i < this.sizes.length; i++){
+			count += this.values[i].length + this.biases[i].length;
+		}
+		return count;
+	}
+	
+	
+	// serialization
+	private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException{
+		input.defaultReadObject();
+		this.allocate();
+	}
+}
@@ -0,0 +1,53 @@
+package de.ef.slowwave.test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import de.ef.slowwave.Activation;
+import de.ef.slowwave.SlowWave;
+
+public class ActivationBenchmark{
+	
+	public ActivationBenchmark(){}
+	
+	
+	public static void main(String ... args){
+		int neurons = 1 << 20, rounds = 50;
+		
+		Random random = new Random(42);
+		double sums[] = new double[neurons];
+		for(int i = 0; i < neurons; i++) sums[i] = random.nextGaussian() * 4;
+		
+		// cost of the activation function alone
+		for(Activation activation : Activation.values()){
+			double check = 0;
+			long time = 0;
+			for(int round = 0; round < 2 * rounds; round++){
+				long start = System.nanoTime();
+				for(int i = 0; i < neurons; i++) check += activation.apply(sums[i]);
+				// first half is warm up
+				if(round >= rounds) time += System.nanoTime() - start;
+			}
+			System.out.printf("%-16s %6.2f ns/neuron (%f)%n", activation, time / (double)rounds / neurons, check);
+		}
+		
+		// cost of a whole network, where the weighted sums dominate for wide layers
+		double input[] = new double[64];
+		for(int i = 0; i < input.length; i++) input[i] = random.nextDouble();
+		for(Activation activation : Activation.values()){
+			Map<String, Object> properties = new HashMap<>();
+			properties.put("activation", activation);
+			SlowWave network = new SlowWave();
+			network.init(input.length, new int[]{128, 128}, 10, properties);
+			
+			long time = 0;
+			for(int round = 0; round < 2 * rounds * 100; round++){
+				long start = System.nanoTime();
+				network.calculate(input);
+				if(round >= rounds * 100) time += System.nanoTime() - start;
+			}
+			System.out.printf("%-16s %6.2f ns/neuron in 64-128-128-10%n", activation, time / (rounds * 100.0) / 266);
+		}
+	}
+}
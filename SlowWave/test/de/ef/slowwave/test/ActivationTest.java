@@ -0,0 +1,80 @@
+package de.ef.slowwave.test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.ef.slowwave.Activation;
+import de.ef.slowwave.SlowWave;
+
+public class ActivationTest{
+	
+	public ActivationTest(){}
+	
+	
+	@Test
+	public void test(){
+		// the documented error bounds of the approximations
+		double tableError = 0, rationalError = 0;
+		for(double x = -40; x <= 40; x += 1e-4){
+			double exact = Activation.SIGMOID.apply(x);
+			tableError = Math.max(tableError, Math.abs(Activation.SIGMOID_TABLE.apply(x) - exact));
+			rationalError = Math.max(rationalError, Math.abs(Activation.SIGMOID_RATIONAL.apply(x) - exact));
+		}
+		Assert.assertTrue(tableError < 3e-6);
+		Assert.assertTrue(rationalError < 4e-5);
+		
+		for(Activation activation : new Activation[]{Activation.SIGMOID, Activation.RELU, Activation.LEAKY_RELU, Activation.TANH}){
+			testDerivative(activation);
+			testTraining(activation);
+		}
+	}
+	
+	// the derivative calculated from the output matches the slope of the function
+	private static void testDerivative(Activation activation){
+		double h = 1e-6;
+		for(double x = -4; x <= 4; x += 0.01){
+			// the rectified functions have a kink at zero
+			if(Math.abs(x) < 2 * h)
+				continue;
+			double slope = (activation.apply(x + h) - activation.apply(x - h)) / (2 * h);
+			Assert.assertEquals(activation + " at " + x, slope, activation.derivative(activation.apply(x)), 1e-6);
+		}
+	}
+	
+	// a small network with the activation in the hidden layer learns the mean of two inputs
+	private static void testTraining(Activation activation){
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("random.seed", 42L);
+		properties.put("activation.1", activation);
+		SlowWave network = new SlowWave();
+		network.init(2, new int[]{8}, 1, properties);
+		
+		Random random = new Random(42);
+		double inputs[][] = new double[100][], outputs[][] = new double[100][];
+		for(int i = 0; i < inputs.length; i++){
+			inputs[i] = new double[]{random.nextDouble(), random.nextDouble()};
+			outputs[i] = new double[]{0.1 + 0.4 * (inputs[i][0] + inputs[i][1])};
+		}
+		
+		double before = error(network, inputs, outputs);
+		for(int epoch = 0; epoch < 200; epoch++){
+			for(int i = 0; i < inputs.length; i++)
+				network.train(inputs[i], outputs[i]);
+		}
+		double after = error(network, inputs, outputs);
+		Assert.assertTrue(activation + ": " + before + " -> " + after, after < before * 0.01);
+	}
+	
+	private static double error(SlowWave network, double inputs[][], double outputs[][]){
+		double error = 0;
+		for(int i = 0; i < inputs.length; i++){
+			double difference = network.calculate(inputs[i])[0] - outputs[i][0];
+			error += difference * difference;
+		}
+		return error / inputs.length;
+	}
+}
@@ -0,0 +1,103 @@
+package de.ef.slowwave.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.ef.slowwave.SlowWave;
+
+public class BatchTest{
+	
+	public BatchTest(){}
+	
+	
+	@Test
+	public void test() throws IOException, ClassNotFoundException, ReflectiveOperationException{
+		SlowWave single = new SlowWave();
+		single.init(7, new int[]{9, 5}, 3, null);
+		
+		// create an identical copy
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(single);
+		out.close();
+		
+		SlowWave batch =
+			(SlowWave)new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		
+		// a batch with a single pair has to train the same way as the single pair training
+		Random random = new Random(42);
+		double input[] = new double[7], output[] = new double[3];
+		for(int i = 0; i < 100; i++){
+			for(int j = 0; j < input.length; j++) input[j] = random.nextDouble();
+			for(int j = 0; j < output.length; j++) output[j] = random.nextDouble();
+			
+			Assert.assertEquals(
+				single.train(input, output), batch.train(new double[][]{input}, new double[][]{output}), 1e-12
+			);
+		}
+		Assert.assertArrayEquals(single.calculate(input), batch.calculate(input), 1e-12);
+		
+		testCalculateBatch(single);
+		testAveragedGradients(single);
+	}
+	
+	// a batch of several chunks changes the weights by the average of the changes of every pair on its own
+	private static void testAveragedGradients(SlowWave network) throws ReflectiveOperationException{
+		Random random = new Random(11);
+		int count = SlowWave.MAX_BATCH_CHUNK * 2 + 22;
+		double inputs[][] = new double[count][7], outputs[][] = new double[count][3];
+		double weights[][] = weights(network), averaged[][] = new double[weights.length][];
+		for(int i = 0; i < weights.length; i++)
+			averaged[i] = new double[weights[i].length];
+		
+		double totalError = 0;
+		for(int s = 0; s < count; s++){
+			for(int j = 0; j < inputs[s].length; j++) inputs[s][j] = random.nextDouble();
+			for(int j = 0; j < outputs[s].length; j++) outputs[s][j] = random.nextDouble();
+			
+			// the default optimizer is plain SGD, so a single pair changes the weights by its gradient
+			SlowWave copy = network.copy();
+			totalError += copy.train(inputs[s], outputs[s]);
+			double changed[][] = weights(copy);
+			for(int i = 0; i < weights.length; i++){
+				for(int j = 0; j < weights[i].length; j++)
+					averaged[i][j] += (changed[i][j] - weights[i][j]) / count;
+			}
+		}
+		
+		SlowWave batch = network.copy();
+		Assert.assertEquals(totalError, batch.train(inputs, outputs), 1e-9);
+		double changed[][] = weights(batch);
+		for(int i = 0; i < weights.length; i++){
+			for(int j = 0; j < weights[i].length; j++)
+				Assert.assertEquals(averaged[i][j], changed[i][j] - weights[i][j], 1e-12);
+		}
+	}
+	
+	private static double[][] weights(SlowWave network) throws ReflectiveOperationException{
+		Field weightsField = SlowWave.class.getDeclaredField("weights");
+		weightsField.setAccessible(true);
+		return (double[][])weightsField.get(network);
+	}
+	
+	// a batch of several chunks calculates the same outputs as every input on its own
+	private static void testCalculateBatch(SlowWave network){
+		Random random = new Random(7);
+		int count = SlowWave.MAX_BATCH_CHUNK * 2 + 22;
+		double inputs[][] = new double[count][7], outputs[][] = new double[count][];
+		for(double input[] : inputs){
+			for(int j = 0; j < input.length; j++) input[j] = random.nextDouble();
+		}
+		network.calculateBatch(inputs, outputs);
+		for(int i = 0; i < count; i++)
+			Assert.assertArrayEquals(network.calculate(inputs[i]), outputs[i], 1e-12);
+	}
+}
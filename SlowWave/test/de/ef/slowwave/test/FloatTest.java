@@ -0,0 +1,50 @@
+package de.ef.slowwave.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.ef.slowwave.SlowWave;
+import de.ef.slowwave.SlowWaveFloat;
+
+public class FloatTest{
+	
+	public FloatTest(){}
+	
+	
+	@Test
+	public void test() throws IOException, ClassNotFoundException{
+		SlowWave network = new SlowWave();
+		network.init(30, new int[]{40, 20}, 5, null);
+		SlowWaveFloat imported = new SlowWaveFloat(network);
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(imported);
+		out.close();
+		
+		SlowWaveFloat read =
+			(SlowWaveFloat)new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		
+		Random random = new Random(42);
+		double input[] = new double[30];
+		float floatInput[] = new float[30];
+		for(int i = 0; i < 10; i++){
+			for(int j = 0; j < input.length; j++) floatInput[j] = (float)(input[j] = random.nextDouble());
+			
+			// float outputs only differ by rounding from the double outputs
+			double expected[] = network.calculate(input);
+			float output[] = imported.calculate(floatInput);
+			for(int j = 0; j < expected.length; j++)
+				Assert.assertEquals(expected[j], output[j], 1e-5);
+			
+			Assert.assertArrayEquals(output, read.calculate(floatInput), 0);
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package de.ef.slowwave.test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.ef.neuralnetworks.InferenceModel;
+import de.ef.slowwave.SlowWave;
+
+public class FreezeTest{
+	
+	public FreezeTest(){}
+	
+	
+	@Test
+	public void test() throws IOException, InterruptedException, ExecutionException{
+		SlowWave network = new SlowWave();
+		network.init(2, new int[]{8}, 1, null);
+		double input[] = {1, 0};
+		double expected[] = network.calculate(input);
+		
+		InferenceModel<double[], double[]> model = network.freeze();
+		Assert.assertSame(model, model.freeze());
+		
+		// training the network does not change the model
+		network.train(input, new double[]{1});
+		Assert.assertFalse(expected[0] == network.calculate(input)[0]);
+		
+		// all threads share the model
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<Boolean>> results = new ArrayList<>();
+		for(int i = 0; i < 4; i++){
+			results.add(executor.submit(() -> {
+				double output[] = new double[1];
+				for(int j = 0; j < 10000; j++){
+					if(model.calculate(input, output)[0] != expected[0])
+						return false;
+				}
+				return true;
+			}));
+		}
+		for(Future<Boolean> result : results)
+			Assert.assertTrue(result.get());
+		executor.shutdown();
+		
+		try{
+			model.train(input, expected);
+			Assert.fail();
+		}
+		catch(UnsupportedOperationException e){}
+	}
+}
@@ -0,0 +1,58 @@
+package de.ef.slowwave.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.ef.slowwave.Optimizer;
+import de.ef.slowwave.SlowWave;
+
+public class OptimizerTest{
+	
+	public OptimizerTest(){}
+	
+	
+	@Test
+	public void test() throws IOException, ClassNotFoundException{
+		for(Optimizer optimizer : Optimizer.values()){
+			Map<String, Object> properties = new HashMap<>();
+			properties.put("optimizer", optimizer);
+			properties.put("optimizer.state.serialized", true);
+			properties.put("learning.rate", 0.01);
+			
+			SlowWave network = new SlowWave();
+			network.init(5, new int[]{7}, 2, properties);
+			// a copy keeps the optimizer, both start without state
+			SlowWave copy = network.copy();
+			
+			Random random = new Random(42);
+			double inputs[][] = new double[8][5], outputs[][] = new double[8][2];
+			for(int i = 0; i < 10; i++){
+				for(double input[] : inputs) for(int j = 0; j < input.length; j++) input[j] = random.nextDouble();
+				for(double output[] : outputs) for(int j = 0; j < output.length; j++) output[j] = random.nextDouble();
+				Assert.assertEquals(network.train(inputs, outputs), copy.train(inputs, outputs), 0);
+			}
+			Assert.assertArrayEquals(network.calculate(inputs[0]), copy.calculate(inputs[0]), 0);
+			
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(network);
+			out.close();
+			
+			SlowWave read = (SlowWave)new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+			
+			// with the serialized state the training resumes exactly the same way
+			Assert.assertEquals(network.train(inputs, outputs), read.train(inputs, outputs), 0);
+			Assert.assertEquals(network.train(inputs[0], outputs[0]), read.train(inputs[0], outputs[0]), 0);
+			Assert.assertArrayEquals(network.calculate(inputs[1]), read.calculate(inputs[1]), 0);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package de.ef.slowwave.test;
+
+import java.io.IOException;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.ef.neuralnetworks.util.NeuralNetworkTraining;
+import de.ef.slowwave.ConcurrentSlowWave;
+
+public class ParallelTrainingTest{
+	
+	public ParallelTrainingTest(){}
+	
+	
+	@Test
+	public void test() throws IOException{
+		// learn which of two inputs is bigger and their mean
+		Random random = new Random(42);
+		List<Entry<double[], double[]>> dataSet = new ArrayList<>();
+		for(int i = 0; i < 1000; i++){
+			double input[] = {random.nextDouble(), random.nextDouble()};
+			dataSet.add(new SimpleEntry<>(input, new double[]{input[0] > input[1] ? 1 : 0, (input[0] + input[1]) / 2}));
+		}
+		
+		ConcurrentSlowWave network = new ConcurrentSlowWave();
+		network.init(2, new int[]{8}, 2, Collections.singletonMap("random.seed", 7L));
+		
+		List<Double> errors = new ArrayList<>();
+		NeuralNetworkTraining.trainParallel(
+			network, dataSet, (output, expected) -> Math.abs(output[0] - expected[0]) + Math.abs(output[1] - expected[1]),
+			error -> {
+				errors.add(error);
+				return errors.size() == 30;
+			},
+			4
+		);
+		double first = errors.get(0), last = errors.get(errors.size() - 1);
+		Assert.assertTrue(first + " -> " + last, last < first * 0.5);
+		
+		// optimizers with state are not possible
+		try{
+			new ConcurrentSlowWave().init(2, new int[]{8}, 2, Collections.singletonMap("optimizer", "adam"));
+			Assert.fail();
+		}
+		catch(IllegalArgumentException e){}
+	}
+}
@@ -0,0 +1,69 @@
+package de.ef.slowwave.test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.ef.slowwave.SlowWave;
+
+public class ParallelismTest{
+	
+	public ParallelismTest(){}
+	
+	
+	@Test
+	public void test(){
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("random.seed", 42L);
+		SlowWave sequential = new SlowWave();
+		sequential.init(20, new int[]{64, 32}, 5, properties);
+		
+		// every layer is split, so the pool is used for each calculation
+		properties.put("parallelism", 4);
+		properties.put("parallelism.threshold", 1);
+		SlowWave parallel = new SlowWave();
+		parallel.init(20, new int[]{64, 32}, 5, properties);
+		
+		// every neuron is calculated by one thread, so the outputs are the same
+		Random random = new Random(42);
+		double inputs[][] = new double[100][20], outputs[][] = new double[100][5];
+		for(int i = 0; i < inputs.length; i++){
+			for(int j = 0; j < inputs[i].length; j++) inputs[i][j] = random.nextDouble();
+			for(int j = 0; j < outputs[i].length; j++) outputs[i][j] = random.nextDouble();
+			Assert.assertEquals(sequential.train(inputs[i], outputs[i]), parallel.train(inputs[i], outputs[i]), 0);
+			Assert.assertArrayEquals(sequential.calculate(inputs[i]), parallel.calculate(inputs[i]), 0);
+		}
+		double sequentialOutputs[][] = new double[100][], parallelOutputs[][] = new double[100][];
+		sequential.calculateBatch(inputs, sequentialOutputs);
+		parallel.calculateBatch(inputs, parallelOutputs);
+		for(int i = 0; i < inputs.length; i++)
+			Assert.assertArrayEquals(sequentialOutputs[i], parallelOutputs[i], 0);
+		
+		// initializing again keeps the pool
+		for(int i = 0; i < 20; i++){
+			parallel.init(20, new int[]{64, 32}, 5, properties);
+			parallel.calculate(inputs[0]);
+		}
+		properties.remove("parallelism");
+		sequential.init(20, new int[]{64, 32}, 5, properties);
+		Assert.assertArrayEquals(sequential.calculate(inputs[0]), parallel.calculate(inputs[0]), 0);
+		Assert.assertTrue(pools().toString(), pools().size() <= 1);
+	}
+	
+	// returns the numbers of all pools with a living worker thread, except the common pool
+	private static Set<String> pools(){
+		Set<String> pools = new HashSet<>();
+		for(Thread thread : Thread.getAllStackTraces().keySet()){
+			// named ForkJoinPool-<pool>-worker-<worker>
+			String parts[] = thread.getName().split("-");
+			if(parts.length == 4 && parts[0].equals("ForkJoinPool") == true)
+				pools.add(parts[1]);
+		}
+		return pools;
+	}
+}
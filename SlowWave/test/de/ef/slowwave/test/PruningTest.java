@@ -0,0 +1,39 @@
+package de.ef.slowwave.test;
+
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.ef.slowwave.SlowWave;
+import de.ef.slowwave.SlowWavePruning;
+import de.ef.slowwave.SlowWaveSparse;
+
+public class PruningTest{
+	
+	public PruningTest(){}
+	
+	
+	@Test
+	public void test(){
+		SlowWave network = new SlowWave();
+		network.init(100, new int[]{50}, 10, Collections.singletonMap("random.seed", 42L));
+		
+		int pruned = SlowWavePruning.pruneToSparsity(network, 0.9);
+		Assert.assertEquals(0.9 * (100 * 50 + 50 * 10), pruned, 0);
+		Assert.assertEquals(0.9, SlowWavePruning.sparsity(network), 1e-9);
+		
+		// pruned weights stay zero while fine-tuning
+		double input[] = new double[100], output[] = new double[10];
+		for(int i = 0; i < input.length; i++) input[i] = (i % 7) / 7.0;
+		for(int i = 0; i < 10; i++){
+			network.train(input, output);
+			network.train(new double[][]{input}, new double[][]{output});
+		}
+		Assert.assertEquals(0.9, SlowWavePruning.sparsity(network), 1e-9);
+		
+		SlowWaveSparse sparse = new SlowWaveSparse(network);
+		Assert.assertEquals(pruned / 9 + 60, sparse.weightCount());
+		Assert.assertArrayEquals(network.calculate(input), sparse.calculate(input), 1e-12);
+	}
+}
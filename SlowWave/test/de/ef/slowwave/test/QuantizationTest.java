@@ -0,0 +1,61 @@
+package de.ef.slowwave.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.ef.slowwave.SlowWave;
+import de.ef.slowwave.SlowWaveInt8;
+
+public class QuantizationTest{
+	
+	public QuantizationTest(){}
+	
+	
+	@Test
+	public void test() throws IOException, ClassNotFoundException{
+		SlowWave network = new SlowWave();
+		network.init(64, new int[]{32}, 10, Collections.singletonMap("random.seed", 42L));
+		SlowWaveInt8 quantized = new SlowWaveInt8(network);
+		
+		Random random = new Random(42);
+		double inputs[][] = new double[200][64];
+		byte pixels[][] = new byte[200][64];
+		for(int i = 0; i < inputs.length; i++){
+			random.nextBytes(pixels[i]);
+			for(int j = 0; j < 64; j++) inputs[i][j] = (pixels[i][j] & 0xFF) / 255.0;
+		}
+		
+		SlowWaveInt8.Comparison comparison = quantized.compare(network, inputs);
+		Assert.assertTrue(comparison.toString(), comparison.maxError < 0.02);
+		Assert.assertTrue(comparison.toString(), comparison.matches > 190);
+		
+		// pixels are used without rounding, so they are at least as accurate
+		for(int i = 0; i < inputs.length; i++){
+			double expected[] = network.calculate(inputs[i]), actual[] = quantized.calculate(pixels[i]);
+			for(int j = 0; j < expected.length; j++)
+				Assert.assertEquals(expected[j], actual[j], 0.02);
+		}
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(quantized);
+		out.close();
+		SlowWaveInt8 read =
+			(SlowWaveInt8)new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		Assert.assertArrayEquals(quantized.calculate(inputs[0]), read.calculate(inputs[0]), 0);
+		
+		try{
+			quantized.train(inputs[0], inputs[0]);
+			Assert.fail();
+		}
+		catch(UnsupportedOperationException e){}
+	}
+}
@@ -24,6 +24,7 @@ public class SerializationTest{
 		
 		Map<String, Object> properties = new HashMap<>();
 		properties.put("learning.rate", 0.49515155);
+		properties.put("activation.1", "leaky_relu");
 		
 		s.init(3, new int[]{2}, 1, properties);
 		
@@ -42,26 +43,27 @@ public class SerializationTest{
 			learningRateField.setAccessible(true);
 			Assert.assertEquals((double)learningRateField.get(s), (double)learningRateField.get(sRead), 0.0);
 			
-			Field layersField = SlowWave.class.getDeclaredField("layers");
-			layersField.setAccessible(true);
+			Field sizesField = SlowWave.class.getDeclaredField("sizes");
+			sizesField.setAccessible(true);
+			Assert.assertArrayEquals((int[])sizesField.get(s), (int[])sizesField.get(sRead));
 			
-			Class<?> neuronClass = Class.forName("de.ef.slowwave.SlowWave$Neuron");
-			Field weightsField = neuronClass.getDeclaredField("weights");
+			Field activationsField = SlowWave.class.getDeclaredField("activations");
+			activationsField.setAccessible(true);
+			Assert.assertArrayEquals((Object[])activationsField.get(s), (Object[])activationsField.get(sRead));
+			
+			Field weightsField = SlowWave.class.getDeclaredField("weights");
 			weightsField.setAccessible(true);
 			
-			Object layers[][] = (Object[][])layersField.get(s);
-			Object layersRead[][] = (Object[][])layersField.get(sRead);
+			double weights[][] = (double[][])weightsField.get(s);
+			double weightsRead[][] = (double[][])weightsField.get(sRead);
 			
-			Assert.assertEquals(layers.length, layersRead.length);
-			for(int i = 0; i < layers.length; i++){
-				Assert.assertEquals(layers[i].length, layersRead[i].length);
-				for(int j = 0; j < layers[i].length; j++){
-					double weights[] = (double[])weightsField.get(layers[i][j]);
-					double weightsRead[] = (double[])weightsField.get(layersRead[i][j]);
-					
-					Assert.assertArrayEquals(weights, weightsRead, 0.0);
-				}
+			Assert.assertEquals(weights.length, weightsRead.length);
+			for(int i = 0; i < weights.length; i++){
+				Assert.assertArrayEquals(weights[i], weightsRead[i], 0.0);
 			}
+			
+			double input[] = new double[]{0.1, 0.5, 0.9};
+			Assert.assertArrayEquals(s.calculate(input), sRead.calculate(input), 0.0);
 		}catch(Throwable t){
 			t.printStackTrace();
 			Assert.fail("Exception while testing: " + t.getMessage());
@@ -0,0 +1,53 @@
+package de.ef.slowwave.test;
+
+import java.io.IOException;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.ef.neuralnetworks.util.NeuralNetworkTraining;
+import de.ef.slowwave.SlowWave;
+
+public class SynchronousTrainingTest{
+	
+	public SynchronousTrainingTest(){}
+	
+	
+	@Test
+	public void test() throws IOException{
+		Random random = new Random(42);
+		List<Entry<double[], double[]>> dataSet = new ArrayList<>();
+		for(int i = 0; i < 500; i++){
+			double input[] = new double[6], output[] = new double[2];
+			for(int j = 0; j < input.length; j++) input[j] = random.nextDouble();
+			for(int j = 0; j < output.length; j++) output[j] = random.nextDouble();
+			dataSet.add(new SimpleEntry<>(input, output));
+		}
+		
+		// the result must not depend on the number of threads
+		double expected[] = this.train(dataSet, 1);
+		Assert.assertArrayEquals(expected, this.train(dataSet, 3), 0);
+		Assert.assertArrayEquals(expected, this.train(dataSet, 8), 0);
+	}
+	
+	private double[] train(List<Entry<double[], double[]>> dataSet, int threads) throws IOException{
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("random.seed", 7L);
+		SlowWave network = new SlowWave();
+		network.init(6, new int[]{10}, 2, properties);
+		
+		int epochs[] = {0};
+		NeuralNetworkTraining.trainSynchronous(
+			network, dataSet, (output, expected) -> Math.abs(output[0] - expected[0]) + Math.abs(output[1] - expected[1]),
+			error -> ++epochs[0] == 5, 20, 32, 8, threads, 13L
+		);
+		return network.calculate(dataSet.get(0).getKey());
+	}
+}
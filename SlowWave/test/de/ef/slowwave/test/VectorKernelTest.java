@@ -0,0 +1,102 @@
+package de.ef.slowwave.test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class VectorKernelTest{
+	
+	public VectorKernelTest(){}
+	
+	
+	@Test
+	public void test() throws ReflectiveOperationException{
+		// the vector kernel is only compiled with src-vector and needs the incubator module
+		Object vector = kernel("de.ef.slowwave.SlowWaveVectorKernel");
+		Assume.assumeTrue("jdk.incubator.vector not available", vector != null);
+		Object scalar = kernel("de.ef.slowwave.SlowWaveKernel$Scalar");
+		
+		Class<?> kernelClass = Class.forName("de.ef.slowwave.SlowWaveKernel");
+		Method dot = method(kernelClass, "dot", double[].class, int.class, double[].class, int.class, int.class);
+		Method axpy = method(kernelClass, "axpy", double.class, double[].class, int.class, double[].class, int.class, int.class);
+		Method propagate = method(kernelClass, "propagate",
+			double.class, double.class, double[].class, int.class, double[].class, double[].class, int.class);
+		Method sigmoid = method(kernelClass, "sigmoid", double[].class, int.class, int.class);
+		
+		// lengths below, at and above multiples of every vector length, with offsets
+		Random random = new Random(42);
+		for(int length = 0; length <= 67; length++){
+			double a[] = values(random, length + 3), b[] = values(random, length + 5);
+			
+			double absolute = 0;
+			for(int k = 0; k < length; k++)
+				absolute += Math.abs(a[3 + k] * b[5 + k]);
+			Assert.assertEquals(
+				(double)dot.invoke(scalar, a, 3, b, 5, length), (double)dot.invoke(vector, a, 3, b, 5, length),
+				length * Math.scalb(1.0, -52) * absolute
+			);
+			
+			double scalarY[] = b.clone(), vectorY[] = b.clone();
+			axpy.invoke(scalar, 0.3, a, 3, scalarY, 5, length);
+			axpy.invoke(vector, 0.3, a, 3, vectorY, 5, length);
+			assertUlp(scalarY, vectorY);
+			
+			double scalarWeights[] = a.clone(), vectorWeights[] = a.clone(), inputs[] = values(random, length);
+			double scalarPrevious[] = values(random, length), vectorPrevious[] = scalarPrevious.clone();
+			propagate.invoke(scalar, 0.7, -0.2, scalarWeights, 3, inputs, scalarPrevious, length);
+			propagate.invoke(vector, 0.7, -0.2, vectorWeights, 3, inputs, vectorPrevious, length);
+			assertUlp(scalarWeights, vectorWeights);
+			assertUlp(scalarPrevious, vectorPrevious);
+			
+			double scalarValues[] = b.clone(), vectorValues[] = b.clone();
+			for(int k = 0; k < scalarValues.length; k++)
+				scalarValues[k] = vectorValues[k] = scalarValues[k] * 20;
+			sigmoid.invoke(scalar, scalarValues, 5, length);
+			sigmoid.invoke(vector, vectorValues, 5, length);
+			Assert.assertArrayEquals(scalarValues, vectorValues, Math.scalb(1.0, -50));
+		}
+		
+		// the networks use the vector kernel if it is available
+		if("scalar".equals(System.getProperty("de.ef.slowwave.kernel")) == false){
+			Field instance = kernelClass.getDeclaredField("INSTANCE");
+			instance.setAccessible(true);
+			Assert.assertSame(vector.getClass(), instance.get(null).getClass());
+		}
+	}
+	
+	
+	// returns a new kernel, null if it is not available
+	private static Object kernel(String name) throws ReflectiveOperationException{
+		try{
+			Constructor<?> constructor = Class.forName(name).getDeclaredConstructor();
+			constructor.setAccessible(true);
+			return constructor.newInstance();
+		}
+		catch(ClassNotFoundException | LinkageError e){
+			return null;
+		}
+	}
+	
+	private static Method method(Class<?> type, String name, Class<?>... parameterTypes) throws NoSuchMethodException{
+		Method method = type.getDeclaredMethod(name, parameterTypes);
+		method.setAccessible(true);
+		return method;
+	}
+	
+	private static double[] values(Random random, int length){
+		double values[] = new double[length];
+		for(int i = 0; i < length; i++)
+			values[i] = random.nextDouble() * 2 - 1;
+		return values;
+	}
+	
+	private static void assertUlp(double expected[], double actual[]){
+		for(int i = 0; i < expected.length; i++)
+			Assert.assertEquals(expected[i], actual[i], Math.ulp(expected[i]));
+	}
+}